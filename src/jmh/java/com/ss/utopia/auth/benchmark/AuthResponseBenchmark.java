@@ -0,0 +1,62 @@
+package com.ss.utopia.auth.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.utopia.auth.dto.AuthResponse;
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.entity.UserRole;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * The remaining per-login work besides hashing and signing: building the authorities of the
+ * authenticated account and serializing the response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class AuthResponseBenchmark {
+
+  ObjectMapper objectMapper;
+  UserAccount user;
+  AuthResponse authResponse;
+
+  @Setup
+  public void setup() {
+    objectMapper = new ObjectMapper();
+    user = UserAccount.builder()
+        .id(UUID.randomUUID())
+        .email("benchmark@test.com")
+        .userRole(UserRole.CUSTOMER)
+        .build();
+    authResponse = new AuthResponse(user.getId(),
+                                    "Bearer eyJhbGciOiJIUzUxMiJ9.eyJzdWIiOiJiZW5jaG1hcmsifQ.sig",
+                                    System.currentTimeMillis(),
+                                    "dGhpcyBpcyBhIHJlZnJlc2ggdG9rZW4gZm9yIGJlbmNobWFya2luZw");
+  }
+
+  @Benchmark
+  public Collection<? extends GrantedAuthority> getAuthorities() {
+    return user.getAuthorities();
+  }
+
+  @Benchmark
+  public String serializeAuthResponse() throws JsonProcessingException {
+    return objectMapper.writeValueAsString(authResponse);
+  }
+}
@@ -0,0 +1,123 @@
+package com.ss.utopia.auth.benchmark;
+
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.entity.UserRole;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.security.JwtPrincipal;
+import com.ss.utopia.auth.security.JwtTokenEngine;
+import com.ss.utopia.auth.security.SecurityConstants;
+import com.ss.utopia.auth.security.SecurityConstants.JwtAlgorithm;
+import com.ss.utopia.auth.security.SecurityConstants.JwtKey;
+import com.ss.utopia.auth.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Token creation as done on every successful login and verification as done on every
+ * authenticated request, for each supported signing algorithm.
+ *
+ * <p>{@code verifyAndExtract} is the full cost of a {@link VerifiedTokenCache} miss,
+ * {@code verifyCached} the cost of a hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+  @Param({"HS512", "RS256", "ES256"})
+  JwtAlgorithm algorithm;
+
+  SecurityConstants securityConstants;
+  JwtTokenEngine engine;
+  VerifiedTokenCache cache;
+  UserAccount user;
+  Date expiresAt;
+  String token;
+
+  @Setup
+  public void setup() throws Exception {
+    securityConstants = new SecurityConstants();
+    securityConstants.setJwtIssuer("ss-utopia");
+    securityConstants.setUserIdClaimKey("userId");
+    securityConstants.setAuthorityClaimKey("Authorities");
+    securityConstants.setJwtExpirationDuration("900000");
+    securityConstants.setJwtKeys(List.of(key(algorithm)));
+    var authMetrics = new AuthMetrics(new SimpleMeterRegistry());
+    engine = new JwtTokenEngine(securityConstants, authMetrics);
+    cache = new VerifiedTokenCache(engine, securityConstants, authMetrics);
+    cache.postConstruct();
+
+    user = UserAccount.builder()
+        .id(UUID.randomUUID())
+        .email("benchmark@test.com")
+        .userRole(UserRole.CUSTOMER)
+        .build();
+    expiresAt = securityConstants.getExpiresAt();
+    token = engine.createToken(user, expiresAt);
+  }
+
+  @Benchmark
+  public String createToken() {
+    return engine.createToken(user, expiresAt);
+  }
+
+  @Benchmark
+  public UsernamePasswordAuthenticationToken verifyAndExtract() {
+    var jwt = engine.verify(token);
+
+    var authorities = jwt.getClaim(securityConstants.getAuthorityClaimKey())
+        .asList(String.class)
+        .stream()
+        .map(SimpleGrantedAuthority::new)
+        .collect(Collectors.toList());
+
+    var userId = jwt.getClaim(securityConstants.getUserIdClaimKey()).asString();
+
+    var jwtPrincipal = JwtPrincipal.builder()
+        .email(jwt.getSubject())
+        .userId(UUID.fromString(userId))
+        .build();
+
+    return new UsernamePasswordAuthenticationToken(jwtPrincipal, null, authorities);
+  }
+
+  @Benchmark
+  public UsernamePasswordAuthenticationToken verifyCached() {
+    return cache.getOrVerify(token);
+  }
+
+  private static JwtKey key(JwtAlgorithm algorithm) throws Exception {
+    if (algorithm == JwtAlgorithm.HS512) {
+      return new JwtKey("benchmark", algorithm, "benchmarkSecret", null, null);
+    }
+    var generator = KeyPairGenerator.getInstance(algorithm == JwtAlgorithm.RS256 ? "RSA" : "EC");
+    generator.initialize(algorithm == JwtAlgorithm.RS256 ? 2048 : 256);
+    var pair = generator.generateKeyPair();
+    var encoder = Base64.getEncoder();
+    return new JwtKey("benchmark", algorithm, null,
+                      encoder.encodeToString(pair.getPublic().getEncoded()),
+                      encoder.encodeToString(pair.getPrivate().getEncoded()));
+  }
+}
@@ -0,0 +1,87 @@
+package com.ss.utopia.auth.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latencies and error count of one operation over a load test run.
+ */
+final class LatencyRecorder {
+
+  private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+  private final String operation;
+  private final Map<String, Double> phaseMillis = new LinkedHashMap<>();
+  private long[] latencies = new long[4096];
+  private int count;
+  private long errors;
+
+  LatencyRecorder(String operation) {
+    this.operation = operation;
+  }
+
+  String getOperation() {
+    return operation;
+  }
+
+  synchronized void record(long nanos, boolean success) {
+    if (count == latencies.length) {
+      latencies = Arrays.copyOf(latencies, count * 2);
+    }
+    latencies[count++] = nanos;
+    if (!success) {
+      errors++;
+    }
+  }
+
+  /**
+   * Add the phases of one response's {@code Server-Timing} header, ie
+   * {@code db;dur=1.20, bcrypt;dur=48.31, total;dur=52.07}.
+   */
+  synchronized void recordServerTiming(String header) {
+    for (var metric : header.split(",")) {
+      var parts = metric.trim().split(";dur=");
+      if (parts.length == 2 && !"total".equals(parts[0])) {
+        phaseMillis.merge(parts[0], Double.parseDouble(parts[1]), Double::sum);
+      }
+    }
+  }
+
+  /**
+   * Summary of everything recorded, latencies in milliseconds.
+   */
+  synchronized Map<String, Object> summarize(double durationSeconds) {
+    var sorted = Arrays.copyOf(latencies, count);
+    Arrays.sort(sorted);
+
+    var summary = new LinkedHashMap<String, Object>();
+    summary.put("operation", operation);
+    summary.put("requests", count);
+    summary.put("errors", errors);
+    summary.put("errorRate", count == 0 ? 0 : errors / (double) count);
+    summary.put("throughput", count / durationSeconds);
+    for (var percentile : PERCENTILES) {
+      summary.put("p" + (percentile * 100 + "").replaceAll("\\.0$", ""),
+                  millis(percentile(sorted, percentile)));
+    }
+    summary.put("max", millis(count == 0 ? 0 : sorted[count - 1]));
+    var meanPhaseMillis = new LinkedHashMap<String, Double>();
+    phaseMillis.forEach(
+        (phase, millis) -> meanPhaseMillis.put(phase, Math.round(millis / count * 100) / 100.0));
+    summary.put("meanPhaseMillis", meanPhaseMillis);
+    return summary;
+  }
+
+  private static long percentile(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    var index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, index)];
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+}
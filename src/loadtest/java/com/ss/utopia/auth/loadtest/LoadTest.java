@@ -0,0 +1,315 @@
+package com.ss.utopia.auth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.utopia.auth.UtopiaAuthServiceApplication;
+import com.ss.utopia.auth.controller.EndpointConstants;
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.entity.UserRole;
+import com.ss.utopia.auth.metrics.ServerTimingFilter;
+import com.ss.utopia.auth.repository.UserAccountRepository;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Boots the service on an in-memory H2 database against a {@link StubEmailServer} and drives
+ * concurrent workloads over HTTP, then reports latency percentiles, throughput and error rate per
+ * operation.
+ *
+ * <p>Configured with system properties, see the README. Runs fully offline: the config server
+ * import and Eureka are disabled by {@code loadtest.properties}.
+ */
+public final class LoadTest {
+
+  private static final String PASSWORD = "abCD1234!@";
+  private static final String CONTENT_TYPE = "Content-Type";
+  private static final String JSON = "application/json";
+
+  private final Map<String, Integer> workloads =
+      parseWorkloads(System.getProperty("loadtest.workloads", "login:16,register:2,reset:2"));
+  private final long warmupSeconds = Long.getLong("loadtest.warmupSeconds", 5);
+  private final long durationSeconds = Long.getLong("loadtest.durationSeconds", 30);
+  private final int seedAccounts = Integer.getInteger("loadtest.seedAccounts", 1000);
+  private final long emailLatencyMillis = Long.getLong("loadtest.emailLatencyMillis", 20);
+  private final double emailErrorRate =
+      Double.parseDouble(System.getProperty("loadtest.emailErrorRate", "0"));
+  private final long emailTimeoutMillis = Long.getLong("loadtest.emailTimeoutMillis", 30_000);
+  private final Path resultFile =
+      Path.of(System.getProperty("loadtest.result", "target/loadtest-result.json"));
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+  private final HttpClient httpClient = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(Duration.ofSeconds(5))
+      .build();
+
+  private StubEmailServer emailServer;
+  private String baseUrl;
+  private volatile boolean recording;
+  private volatile boolean running = true;
+
+  private LoadTest() {
+    for (var operation : List.of("login", "register", "confirm", "reset-request",
+                                 "reset-complete", "email-delivery")) {
+      recorders.put(operation, new LatencyRecorder(operation));
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    new LoadTest().run();
+    System.exit(0);
+  }
+
+  private void run() throws Exception {
+    var emailThreads = workloads.values().stream().mapToInt(Integer::intValue).sum() + 4;
+    try (var stub = new StubEmailServer(emailLatencyMillis, emailErrorRate, emailThreads)) {
+      emailServer = stub;
+      run(start());
+    }
+  }
+
+  private void run(ConfigurableApplicationContext context) throws Exception {
+    try (context) {
+      baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+      seed(context);
+      drive();
+      report();
+    }
+  }
+
+  private ConfigurableApplicationContext start() {
+    return new SpringApplicationBuilder(UtopiaAuthServiceApplication.class)
+        .profiles("local-h2")
+        .run("--spring.config.name=loadtest",
+             "--com.ss.utopia.email.sesEndpoint=" + emailServer.getEndpoint());
+  }
+
+  /**
+   * Insert confirmed accounts for the login and reset workloads, all sharing one password hash.
+   */
+  private void seed(ConfigurableApplicationContext context) {
+    var hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+    var accounts = new ArrayList<UserAccount>();
+    for (var i = 0; i < seedAccounts; i++) {
+      accounts.add(seedAccount(loginEmail(i), hash));
+      accounts.add(seedAccount(resetEmail(i), hash));
+    }
+    context.getBean(UserAccountRepository.class).saveAll(accounts);
+    System.out.println("Seeded " + accounts.size() + " accounts.");
+  }
+
+  private static UserAccount seedAccount(String email, String hash) {
+    return UserAccount.builder()
+        .email(email)
+        .password(hash)
+        .userRole(UserRole.CUSTOMER)
+        .confirmed(true)
+        .build();
+  }
+
+  private void drive() throws InterruptedException {
+    var threads = workloads.values().stream().mapToInt(Integer::intValue).sum();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    workloads.forEach((workload, workers) -> {
+      for (var worker = 0; worker < workers; worker++) {
+        var workerIndex = worker;
+        executor.execute(() -> loop(workload, workerIndex, workers));
+      }
+    });
+
+    System.out.println("Warming up for " + warmupSeconds + "s, workloads=" + workloads);
+    TimeUnit.SECONDS.sleep(warmupSeconds);
+    recording = true;
+    System.out.println("Measuring for " + durationSeconds + "s.");
+    TimeUnit.SECONDS.sleep(durationSeconds);
+    recording = false;
+    running = false;
+
+    executor.shutdown();
+    if (!executor.awaitTermination(emailTimeoutMillis, TimeUnit.MILLISECONDS)) {
+      executor.shutdownNow();
+    }
+  }
+
+  private void loop(String workload, int worker, int workers) {
+    for (var iteration = 0; running; iteration++) {
+      try {
+        switch (workload) {
+          case "login":
+            login(worker, workers, iteration);
+            break;
+          case "register":
+            registerAndConfirm();
+            break;
+          case "reset":
+            resetPassword(worker, workers, iteration);
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown workload: " + workload);
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void login(int worker, int workers, int iteration) throws InterruptedException {
+    var email = loginEmail(accountIndex(worker, workers, iteration));
+    send("login", post("/authenticate", Map.of("email", email, "password", PASSWORD)));
+  }
+
+  private void registerAndConfirm() throws InterruptedException {
+    var email = "loadtest-new-" + UUID.randomUUID() + "@test.com";
+    var start = System.nanoTime();
+    if (!send("register", post(EndpointConstants.API_V_0_1_ACCOUNTS,
+                               Map.of("email", email, "password", PASSWORD)))) {
+      return;
+    }
+    var token = awaitToken(email, start);
+    if (token == null) {
+      return;
+    }
+    var confirm = request(EndpointConstants.API_V_0_1_ACCOUNTS + "/confirm/" + token)
+        .PUT(BodyPublishers.noBody())
+        .build();
+    send("confirm", confirm);
+  }
+
+  private void resetPassword(int worker, int workers, int iteration)
+      throws InterruptedException {
+    // each worker owns a disjoint set of accounts so it always receives its own reset link
+    var email = resetEmail(accountIndex(worker, workers, iteration));
+    var start = System.nanoTime();
+    if (!send("reset-request", post(EndpointConstants.API_V_0_1_ACCOUNTS + "/password-reset",
+                                    Map.of("email", email)))) {
+      return;
+    }
+    var token = awaitToken(email, start);
+    if (token == null) {
+      return;
+    }
+    send("reset-complete", post(EndpointConstants.API_V_0_1_ACCOUNTS + "/new-password",
+                                Map.of("token", token, "password", PASSWORD)));
+  }
+
+  private int accountIndex(int worker, int workers, int iteration) {
+    var perWorker = Math.max(1, seedAccounts / workers);
+    return (worker + workers * (iteration % perWorker)) % seedAccounts;
+  }
+
+  /**
+   * Wait for the email sent to the recipient and return the token at the end of its link.
+   */
+  private String awaitToken(String recipient, long sentAtNanos) throws InterruptedException {
+    var url = emailServer.awaitUrl(recipient, emailTimeoutMillis);
+    record("email-delivery", System.nanoTime() - sentAtNanos, url != null);
+    return url == null ? null : url.substring(url.lastIndexOf('/') + 1);
+  }
+
+  private boolean send(String operation, HttpRequest request) throws InterruptedException {
+    var start = System.nanoTime();
+    var success = false;
+    try {
+      var response = httpClient.send(request, BodyHandlers.discarding());
+      success = response.statusCode() / 100 == 2;
+      if (recording) {
+        response.headers().firstValue(ServerTimingFilter.SERVER_TIMING_HEADER)
+            .ifPresent(recorders.get(operation)::recordServerTiming);
+      }
+    } catch (IOException ex) {
+      success = false;
+    } finally {
+      record(operation, System.nanoTime() - start, success);
+    }
+    return success;
+  }
+
+  private void record(String operation, long nanos, boolean success) {
+    if (recording) {
+      recorders.get(operation).record(nanos, success);
+    }
+  }
+
+  private HttpRequest post(String path, Map<String, String> body) {
+    try {
+      return request(path)
+          .header(CONTENT_TYPE, JSON)
+          .POST(BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+          .build();
+    } catch (IOException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private HttpRequest.Builder request(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .timeout(Duration.ofSeconds(30));
+  }
+
+  private void report() throws IOException {
+    var summaries = new ArrayList<Map<String, Object>>();
+    System.out.printf("%n%-16s %9s %8s %10s %9s %9s %9s %9s %9s%n", "operation", "requests",
+                      "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    for (var recorder : recorders.values()) {
+      var summary = recorder.summarize(durationSeconds);
+      if ((int) summary.get("requests") == 0) {
+        continue;
+      }
+      summaries.add(summary);
+      System.out.printf("%-16s %9d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                        summary.get("operation"), summary.get("requests"),
+                        summary.get("errors"), summary.get("throughput"), summary.get("p50"),
+                        summary.get("p90"), summary.get("p99"), summary.get("p99.9"),
+                        summary.get("max"));
+      System.out.println("  mean phase ms " + summary.get("meanPhaseMillis"));
+    }
+    System.out.println("Stub email server accepted=" + emailServer.getAccepted()
+                           + " rejected=" + emailServer.getRejected());
+
+    var result = new LinkedHashMap<String, Object>();
+    result.put("workloads", workloads);
+    result.put("durationSeconds", durationSeconds);
+    result.put("emailLatencyMillis", emailLatencyMillis);
+    result.put("emailErrorRate", emailErrorRate);
+    result.put("operations", summaries);
+    Files.createDirectories(resultFile.toAbsolutePath().getParent());
+    objectMapper.writerWithDefaultPrettyPrinter().writeValue(resultFile.toFile(), result);
+    System.out.println("Results written to " + resultFile);
+  }
+
+  private static String loginEmail(int index) {
+    return "loadtest-login-" + index + "@test.com";
+  }
+
+  private static String resetEmail(int index) {
+    return "loadtest-reset-" + index + "@test.com";
+  }
+
+  private static Map<String, Integer> parseWorkloads(String value) {
+    var parsed = new LinkedHashMap<String, Integer>();
+    for (var entry : value.split(",")) {
+      var parts = entry.trim().split(":");
+      parsed.put(parts[0], parts.length > 1 ? Integer.parseInt(parts[1]) : 1);
+    }
+    return parsed;
+  }
+}
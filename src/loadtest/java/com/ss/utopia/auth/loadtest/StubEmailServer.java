@@ -0,0 +1,99 @@
+package com.ss.utopia.auth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for the SES email endpoint.
+ *
+ * <p>Accepts the JSON emails posted by {@code RestTemplateEmailClient}, optionally after a fixed
+ * delay and failing a share of them with a 500, and keeps the URL of every accepted email so the
+ * load test can follow confirmation and password reset links.
+ */
+final class StubEmailServer implements AutoCloseable {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Map<String, BlockingQueue<String>> urlsByRecipient = new ConcurrentHashMap<>();
+  private final LongAdder accepted = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  private final long latencyMillis;
+  private final double errorRate;
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  StubEmailServer(long latencyMillis, double errorRate, int threads) throws IOException {
+    this.latencyMillis = latencyMillis;
+    this.errorRate = errorRate;
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", this::handle);
+    executor = Executors.newFixedThreadPool(threads);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  String getEndpoint() {
+    return "http://localhost:" + server.getAddress().getPort() + "/email";
+  }
+
+  /**
+   * Wait for the next email sent to the recipient and return its link.
+   *
+   * @return the link, or null if no email arrived in time.
+   */
+  String awaitUrl(String recipient, long timeoutMillis) throws InterruptedException {
+    return urlsFor(recipient).poll(timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+
+  long getAccepted() {
+    return accepted.sum();
+  }
+
+  long getRejected() {
+    return rejected.sum();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      var email = objectMapper.readTree(exchange.getRequestBody());
+      if (latencyMillis > 0) {
+        Thread.sleep(latencyMillis);
+      }
+      if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+        rejected.increment();
+        exchange.sendResponseHeaders(500, -1);
+        return;
+      }
+      urlsFor(email.path("recipient").asText()).add(email.path("url").asText());
+      accepted.increment();
+      exchange.sendResponseHeaders(200, -1);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private BlockingQueue<String> urlsFor(String recipient) {
+    return urlsByRecipient.computeIfAbsent(recipient, key -> new LinkedBlockingQueue<>());
+  }
+}
@@ -8,8 +8,9 @@ import org.springframework.cloud.commons.util.InetUtils;
 import org.springframework.cloud.netflix.eureka.EurekaInstanceConfigBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling
 @SpringBootApplication
 public class UtopiaAuthServiceApplication {
 
@@ -17,11 +18,6 @@ public class UtopiaAuthServiceApplication {
     SpringApplication.run(UtopiaAuthServiceApplication.class, args);
   }
 
-  @Bean
-  public BCryptPasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
-  }
-
   @Profile("ecs")
   @Bean
   public EurekaInstanceConfigBean eurekaInstanceConfigBean(InetUtils inetUtils)
@@ -0,0 +1,69 @@
+package com.ss.utopia.auth.bootstrap;
+
+import com.ss.utopia.auth.repository.AccountActionTokenRepository;
+import com.ss.utopia.auth.repository.SchedulerLeaseRepository;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills {@code expiresAt} for action tokens issued before the column existed. Until this has run
+ * those tokens count as expired.
+ *
+ * <p>Tokens are updated in pages of {@code batchSize}. Only the instance holding the
+ * {@value #LEASE_NAME} lease does the work, so a rolling deploy backfills once rather than on
+ * every node.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActionTokenExpiryBackfill implements ApplicationRunner {
+
+  static final String LEASE_NAME = "action-token-expiry-backfill";
+
+  private final AccountActionTokenRepository accountActionTokenRepository;
+  private final SchedulerLeaseRepository schedulerLeaseRepository;
+  private final String leaseOwner = UUID.randomUUID().toString();
+
+  @Setter
+  private int batchSize = 500;
+  @Setter
+  private long leaseMillis = 300_000;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!accountActionTokenRepository.existsByExpiresAtIsNull()) {
+      return;
+    }
+    var backfilled = 0;
+    while (acquireLease()) {
+      // backfilled tokens leave the page, so every page starts at the front
+      var tokens = accountActionTokenRepository.findByExpiresAtIsNull(
+          PageRequest.of(0, batchSize));
+      for (var token : tokens) {
+        token.setExpiresAt(token.getCreation().plusMinutes(token.getAction().getMinutesToLive()));
+      }
+      accountActionTokenRepository.saveAll(tokens);
+      backfilled += tokens.size();
+      if (tokens.size() < batchSize) {
+        break;
+      }
+    }
+    if (backfilled > 0) {
+      log.info("Backfilled expiry for " + backfilled + " action token(s).");
+    }
+  }
+
+  private boolean acquireLease() {
+    var now = ZonedDateTime.now();
+    return schedulerLeaseRepository.acquire(LEASE_NAME, leaseOwner, now,
+                                            now.plus(leaseMillis, ChronoUnit.MILLIS));
+  }
+}
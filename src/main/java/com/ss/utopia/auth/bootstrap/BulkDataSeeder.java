@@ -0,0 +1,209 @@
+package com.ss.utopia.auth.bootstrap;
+
+import com.ss.utopia.auth.entity.AccountAction;
+import com.ss.utopia.auth.entity.TimeOrderedUuidGenerator;
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.entity.UserRole;
+import com.ss.utopia.auth.security.TokenDigests;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates a large synthetic dataset of accounts, account action tokens and password resets, so
+ * query plans and cache behaviour can be measured against realistically sized tables.
+ *
+ * <p>Rows are written with batched JDBC inserts from one thread per partition of the account
+ * range. All accounts share a single precomputed password hash. Runs after
+ * {@link H2DataBootstrap} and does nothing if seeded accounts already exist. On MySQL,
+ * add {@code rewriteBatchedStatements=true} to the JDBC URL for the batches to be sent as
+ * multi-row inserts.
+ */
+@Slf4j
+@Component
+@Profile("bulk-seed")
+@Order(Ordered.LOWEST_PRECEDENCE)
+@RequiredArgsConstructor
+@ConfigurationProperties(value = "com.ss.utopia.bulk-seed", ignoreUnknownFields = false)
+public class BulkDataSeeder implements ApplicationRunner {
+
+  private static final String INSERT_ACCOUNT = "INSERT INTO user_account (id, email,"
+      + " normalized_email, password, user_role, creation_date_time, last_modified_date_time,"
+      + " account_non_expired, account_non_locked, credentials_non_expired, enabled, confirmed,"
+      + " token_version) VALUES (?, ?, ?, ?, ?, ?, ?, TRUE, TRUE, TRUE, TRUE, ?, 0)";
+  private static final String INSERT_ACTION_TOKEN = "INSERT INTO account_action_token (token,"
+      + " owner_account_id, action, creation, expires_at, active) VALUES (?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_PASSWORD_RESET = "INSERT INTO password_reset (user_id,"
+      + " email, token_hash, creation, is_active) VALUES (?, ?, ?, ?, ?)";
+
+  private static final AccountAction[] ACTIONS = AccountAction.values();
+
+  private final JdbcTemplate jdbcTemplate;
+  private final PasswordEncoder passwordEncoder;
+
+  @Getter
+  @Setter
+  private int accounts = 1_000_000;
+  /**
+   * Number of accounts that get an account action token, at most one each.
+   */
+  @Getter
+  @Setter
+  private int actionTokens = 1_000_000;
+  /**
+   * Number of accounts that get a password reset, at most one each.
+   */
+  @Getter
+  @Setter
+  private int passwordResets = 1_000_000;
+  @Getter
+  @Setter
+  private int batchSize = 1_000;
+  @Getter
+  @Setter
+  private int threads = Runtime.getRuntime().availableProcessors();
+  @Getter
+  @Setter
+  private String password = "test";
+  @Getter
+  @Setter
+  private String emailDomain = "seed.test.com";
+
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    // probe the first seeded account through the unique index rather than scanning for the domain
+    var existing = jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM user_account WHERE normalized_email = ?", Long.class,
+        UserAccount.normalizeEmail(seedEmail(0)));
+    if (existing != null && existing > 0) {
+      log.info("Bulk seed skipped, seeded accounts exist.");
+      return;
+    }
+    seed();
+  }
+
+  void seed() throws InterruptedException, ExecutionException {
+    var start = System.nanoTime();
+    var hash = passwordEncoder.encode(password);
+    var partitionCount = Math.max(1, threads);
+    var partitionSize = Math.max(1, (accounts + partitionCount - 1) / partitionCount);
+    log.info("Bulk seeding " + accounts + " account(s) on " + partitionCount + " thread(s).");
+
+    var executor = Executors.newFixedThreadPool(partitionCount);
+    try {
+      var partitions = new ArrayList<Future<?>>();
+      for (var partitionStart = 0; partitionStart < accounts; partitionStart += partitionSize) {
+        var first = partitionStart;
+        var last = Math.min(accounts, partitionStart + partitionSize);
+        partitions.add(executor.submit(() -> seedPartition(first, last, hash)));
+      }
+      for (var partition : partitions) {
+        partition.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    var seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+    log.info(String.format("Bulk seeded %d account(s) in %.1fs (%.0f accounts/s).",
+                           accounts, seconds, accounts / seconds));
+  }
+
+  private void seedPartition(int first, int last, String hash) {
+    for (var batchStart = first; batchStart < last; batchStart += batchSize) {
+      var batchEnd = Math.min(last, batchStart + batchSize);
+      var accountRows = new ArrayList<Object[]>(batchEnd - batchStart);
+      var tokenRows = new ArrayList<Object[]>();
+      var resetRows = new ArrayList<Object[]>();
+
+      for (var i = batchStart; i < batchEnd; i++) {
+        var random = ThreadLocalRandom.current();
+        var created = Instant.now().minus(random.nextInt(365 * 24 * 60), ChronoUnit.MINUTES);
+        var id = TimeOrderedUuidGenerator.generate(created.toEpochMilli());
+        var email = seedEmail(i);
+
+        accountRows.add(new Object[]{
+            toBytes(id), email, UserAccount.normalizeEmail(email), hash,
+            role(random.nextInt(100)).name(), Timestamp.from(created), Timestamp.from(created),
+            random.nextInt(10) != 0});
+        if (i < actionTokens) {
+          var issued = created.plus(random.nextInt(60 * 24), ChronoUnit.MINUTES);
+          var action = ACTIONS[i % ACTIONS.length];
+          var expires = issued.plus(action.getMinutesToLive(), ChronoUnit.MINUTES);
+          tokenRows.add(new Object[]{
+              toBytes(TimeOrderedUuidGenerator.generate(issued.toEpochMilli())), toBytes(id),
+              action.name(), Timestamp.from(issued), Timestamp.from(expires),
+              random.nextInt(10) == 0});
+        }
+        if (i < passwordResets) {
+          var requested = created.plus(random.nextInt(60 * 24), ChronoUnit.MINUTES);
+          resetRows.add(new Object[]{
+              toBytes(id), email, TokenDigests.sha256(UUID.randomUUID().toString()),
+              Timestamp.from(requested), random.nextInt(10) == 0});
+        }
+      }
+
+      batchInsert(INSERT_ACCOUNT, accountRows);
+      batchInsert(INSERT_ACTION_TOKEN, tokenRows);
+      batchInsert(INSERT_PASSWORD_RESET, resetRows);
+    }
+    log.debug("Bulk seeded accounts " + first + " to " + last + ".");
+  }
+
+  private String seedEmail(int index) {
+    return "seed-" + index + "@" + emailDomain;
+  }
+
+  private void batchInsert(String sql, List<Object[]> rows) {
+    if (!rows.isEmpty()) {
+      jdbcTemplate.batchUpdate(sql, rows);
+    }
+  }
+
+  /**
+   * Mostly customers with a few of every other role.
+   */
+  private static UserRole role(int percentile) {
+    if (percentile < 90) {
+      return UserRole.CUSTOMER;
+    }
+    if (percentile < 95) {
+      return UserRole.TRAVEL_AGENT;
+    }
+    if (percentile < 98) {
+      return UserRole.EMPLOYEE;
+    }
+    return UserRole.DEFAULT;
+  }
+
+  /**
+   * Same layout Hibernate uses for UUIDs mapped to {@code BINARY(16)}.
+   */
+  private static byte[] toBytes(UUID uuid) {
+    return ByteBuffer.allocate(16)
+        .putLong(uuid.getMostSignificantBits())
+        .putLong(uuid.getLeastSignificantBits())
+        .array();
+  }
+}
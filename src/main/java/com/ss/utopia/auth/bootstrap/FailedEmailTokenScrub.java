@@ -0,0 +1,29 @@
+package com.ss.utopia.auth.bootstrap;
+
+import com.ss.utopia.auth.entity.EmailOutboxMessage.Status;
+import com.ss.utopia.auth.repository.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Clears the tokens of outbox messages given up on before tokens were cleared on failure, so no
+ * usable link is left in the table.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FailedEmailTokenScrub implements ApplicationRunner {
+
+  private final EmailOutboxRepository emailOutboxRepository;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    var scrubbed = emailOutboxRepository.clearTokens(Status.FAILED);
+    if (scrubbed > 0) {
+      log.info("Cleared tokens of " + scrubbed + " failed outbox email(s).");
+    }
+  }
+}
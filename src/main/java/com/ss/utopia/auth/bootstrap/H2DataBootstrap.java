@@ -6,16 +6,18 @@ import com.ss.utopia.auth.repository.UserAccountRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 @Component
 @Profile("local-h2")
+@Order(0)
 @RequiredArgsConstructor
 public class H2DataBootstrap implements CommandLineRunner {
 
   private final UserAccountRepository userAccountRepository;
-  private final BCryptPasswordEncoder passwordEncoder;
+  private final PasswordEncoder passwordEncoder;
   private String encodedPassword;
 
   @Override
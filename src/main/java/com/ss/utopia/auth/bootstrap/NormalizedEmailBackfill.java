@@ -0,0 +1,62 @@
+package com.ss.utopia.auth.bootstrap;
+
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.repository.UserAccountRepository;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills {@code normalizedEmail} for accounts created before the column existed. Accounts are only
+ * found by their normalized email, so until this has run they cannot log in. Accounts are read in
+ * keyset pages of {@code batchSize} so startup never loads the whole backlog at once.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NormalizedEmailBackfill implements ApplicationRunner {
+
+  private final UserAccountRepository userAccountRepository;
+
+  @Setter
+  private int batchSize = 500;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    var backfilled = 0;
+    var after = new UUID(0, 0);
+    while (true) {
+      var accounts = userAccountRepository.findWithoutNormalizedEmail(
+          after, PageRequest.of(0, batchSize));
+      for (var account : accounts) {
+        backfilled += backfill(account) ? 1 : 0;
+      }
+      if (accounts.size() < batchSize) {
+        break;
+      }
+      after = accounts.get(accounts.size() - 1).getId();
+    }
+    if (backfilled > 0) {
+      log.info("Backfilled normalized email for " + backfilled + " account(s).");
+    }
+  }
+
+  private boolean backfill(UserAccount account) {
+    account.setNormalizedEmail(UserAccount.normalizeEmail(account.getEmail()));
+    try {
+      userAccountRepository.save(account);
+      return true;
+    } catch (DataIntegrityViolationException ex) {
+      // two legacy accounts differing only in case or whitespace, needs a manual merge
+      log.error("Duplicate normalized email for account=" + account.getId()
+                    + ", left unset. email=" + account.getEmail());
+      return false;
+    }
+  }
+}
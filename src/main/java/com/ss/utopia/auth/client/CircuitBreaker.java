@@ -0,0 +1,75 @@
+package com.ss.utopia.auth.client;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Minimal consecutive-failure circuit breaker.
+ *
+ * <p>After {@code failureThreshold} consecutive failures the breaker opens and calls are refused
+ * for {@code openMillis}. It then lets a single probe call through (half-open); the probe's outcome
+ * either closes the breaker or reopens it for another {@code openMillis}.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openMillis;
+  private final LongSupplier clock;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAt;
+
+  public CircuitBreaker(int failureThreshold, long openMillis) {
+    this(failureThreshold, openMillis, System::currentTimeMillis);
+  }
+
+  CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clock) {
+    this.failureThreshold = failureThreshold;
+    this.openMillis = openMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * Whether a call may proceed. Every permitted call must be followed by {@link #onSuccess()} or
+   * {@link #onFailure()}.
+   */
+  public synchronized boolean tryAcquire() {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (clock.getAsLong() - openedAt >= openMillis) {
+          state = State.HALF_OPEN;
+          return true;
+        }
+        return false;
+      case HALF_OPEN:
+      default:
+        // a probe is already in flight
+        return false;
+    }
+  }
+
+  public synchronized void onSuccess() {
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+  }
+
+  public synchronized void onFailure() {
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = clock.getAsLong();
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+}
@@ -1,6 +1,5 @@
 package com.ss.utopia.auth.client;
 
-import java.util.UUID;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -8,7 +7,7 @@ public interface EmailClient {
 
   void sendForgetPasswordEmail(String token, String email);
 
-  void sendConfirmAccountEmail(String recipient, UUID confirmationToken);
+  void sendConfirmAccountEmail(String recipient, String confirmationToken);
 
-  void sendDeleteAccountEmail(String recipient, UUID token);
+  void sendDeleteAccountEmail(String recipient, String token);
 }
@@ -0,0 +1,167 @@
+package com.ss.utopia.auth.client;
+
+import com.ss.utopia.auth.entity.EmailOutboxMessage;
+import com.ss.utopia.auth.entity.EmailOutboxMessage.Status;
+import com.ss.utopia.auth.exception.EmailCircuitOpenException;
+import com.ss.utopia.auth.exception.EmailRejectedException;
+import com.ss.utopia.auth.repository.EmailOutboxRepository;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the email outbox in batches, sending through {@link RestTemplateEmailClient}.
+ *
+ * <p>Each run claims up to {@code batchSize} due messages with a conditional update, so several
+ * instances can run at once without sending an email twice. The claim on each message is renewed
+ * for another {@code leaseMillis} right before it is sent, so a slow batch never lets another
+ * instance take over a message that is still queued here. {@code leaseMillis} only has to cover
+ * one send. Sends happen outside any transaction. Refusals by an open circuit breaker are retried
+ * without counting as an attempt, and emails the service rejects are given up on right away.
+ * A failed message is retried with exponential backoff and marked {@code FAILED} after
+ * {@code maxAttempts}; its token is cleared then so the row no longer holds a usable link.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConfigurationProperties(value = "com.ss.utopia.email-outbox", ignoreUnknownFields = false)
+public class EmailOutboxDispatcher {
+
+  private final EmailOutboxRepository emailOutboxRepository;
+  private final RestTemplateEmailClient restTemplateEmailClient;
+
+  @Getter
+  @Setter
+  private boolean enabled = true;
+  @Getter
+  @Setter
+  private long pollIntervalMillis = 1000;
+  @Getter
+  @Setter
+  private int batchSize = 50;
+  @Getter
+  @Setter
+  private int maxAttempts = 8;
+  @Getter
+  @Setter
+  private long initialBackoffMillis = 5_000;
+  @Getter
+  @Setter
+  private long maxBackoffMillis = 3_600_000;
+  /**
+   * How long a claim on a message lasts. Must exceed the longest single send, ie connect, read
+   * and connection pool timeouts of {@link RestTemplateEmailClient} together.
+   */
+  @Getter
+  @Setter
+  private long leaseMillis = 60_000;
+
+  @Scheduled(fixedDelayString = "${com.ss.utopia.email-outbox.poll-interval-millis:1000}")
+  public void dispatch() {
+    if (!enabled) {
+      return;
+    }
+    int sent;
+    do {
+      sent = dispatchBatch();
+    } while (sent == batchSize);
+  }
+
+  /**
+   * Claim and send one batch.
+   *
+   * @return the number of messages claimed.
+   */
+  int dispatchBatch() {
+    var now = ZonedDateTime.now();
+    var ids = emailOutboxRepository.findDueIds(Status.PENDING, now, PageRequest.of(0, batchSize));
+    if (ids.isEmpty()) {
+      return 0;
+    }
+
+    var claimToken = UUID.randomUUID();
+    var leaseUntil = now.plus(leaseMillis, ChronoUnit.MILLIS);
+    if (emailOutboxRepository.claim(ids, claimToken, Status.PENDING, now, leaseUntil) == 0) {
+      return 0;
+    }
+
+    var claimed = emailOutboxRepository.findAllByClaimToken(claimToken);
+    for (var message : claimed) {
+      var renewUntil = ZonedDateTime.now().plus(leaseMillis, ChronoUnit.MILLIS);
+      if (emailOutboxRepository.renewClaim(message.getId(), claimToken, renewUntil) == 0) {
+        log.debug("Claim on email id=" + message.getId() + " lost, skipping.");
+        continue;
+      }
+      try {
+        send(message);
+        emailOutboxRepository.delete(message);
+      } catch (EmailCircuitOpenException ex) {
+        release(message);
+      } catch (RuntimeException ex) {
+        recordFailure(message, ex);
+      }
+    }
+    return claimed.size();
+  }
+
+  private void send(EmailOutboxMessage message) {
+    switch (message.getType()) {
+      case PASSWORD_RESET:
+        restTemplateEmailClient.sendForgetPasswordEmail(message.getToken(),
+                                                        message.getRecipient());
+        break;
+      case ACCOUNT_CONFIRMATION:
+        restTemplateEmailClient.sendConfirmAccountEmail(message.getRecipient(),
+                                                        message.getToken());
+        break;
+      case ACCOUNT_DELETION:
+        restTemplateEmailClient.sendDeleteAccountEmail(message.getRecipient(),
+                                                       message.getToken());
+        break;
+      default:
+        throw new IllegalStateException("Unknown email type " + message.getType());
+    }
+  }
+
+  /**
+   * Put a message refused by the circuit breaker back without counting an attempt, so an outage
+   * of the email service cannot use up its attempts.
+   */
+  private void release(EmailOutboxMessage message) {
+    message.setClaimToken(null);
+    message.setNextAttemptAt(ZonedDateTime.now().plus(initialBackoffMillis, ChronoUnit.MILLIS));
+    emailOutboxRepository.save(message);
+  }
+
+  private void recordFailure(EmailOutboxMessage message, RuntimeException ex) {
+    var attempts = message.getAttempts() + 1;
+    message.setAttempts(attempts);
+    message.setClaimToken(null);
+    message.setLastError(truncate(ex.toString()));
+
+    if (attempts >= maxAttempts || ex instanceof EmailRejectedException) {
+      log.error("Giving up on " + message.getType() + " email id=" + message.getId()
+                    + " after " + attempts + " attempts: " + ex);
+      message.setStatus(Status.FAILED);
+      message.setToken("");
+    } else {
+      var backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempts - 1, 30));
+      log.warn("Failed to send " + message.getType() + " email id=" + message.getId()
+                   + ", retrying in " + backoff + "ms: " + ex);
+      message.setNextAttemptAt(ZonedDateTime.now().plus(backoff, ChronoUnit.MILLIS));
+    }
+    emailOutboxRepository.save(message);
+  }
+
+  private static String truncate(String error) {
+    return error.length() <= 1000 ? error : error.substring(0, 1000);
+  }
+}
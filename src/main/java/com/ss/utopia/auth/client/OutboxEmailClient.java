@@ -0,0 +1,49 @@
+package com.ss.utopia.auth.client;
+
+import com.ss.utopia.auth.entity.EmailOutboxMessage;
+import com.ss.utopia.auth.entity.EmailOutboxMessage.EmailType;
+import com.ss.utopia.auth.repository.EmailOutboxRepository;
+import java.time.ZonedDateTime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link EmailClient} that queues emails in the outbox table instead of sending them. The row
+ * joins the caller's transaction, so an email is sent if and only if the change that triggered it
+ * commits. {@link EmailOutboxDispatcher} does the sending.
+ */
+@Slf4j
+@Primary
+@Component
+@RequiredArgsConstructor
+public class OutboxEmailClient implements EmailClient {
+
+  private final EmailOutboxRepository emailOutboxRepository;
+
+  @Override
+  public void sendForgetPasswordEmail(String token, String email) {
+    enqueue(EmailType.PASSWORD_RESET, email, token);
+  }
+
+  @Override
+  public void sendConfirmAccountEmail(String recipient, String confirmationToken) {
+    enqueue(EmailType.ACCOUNT_CONFIRMATION, recipient, confirmationToken);
+  }
+
+  @Override
+  public void sendDeleteAccountEmail(String recipient, String token) {
+    enqueue(EmailType.ACCOUNT_DELETION, recipient, token);
+  }
+
+  private void enqueue(EmailType type, String recipient, String token) {
+    log.debug("Queue " + type + " email to: " + recipient);
+    emailOutboxRepository.save(EmailOutboxMessage.builder()
+                                   .type(type)
+                                   .recipient(recipient)
+                                   .token(token)
+                                   .nextAttemptAt(ZonedDateTime.now())
+                                   .build());
+  }
+}
@@ -4,20 +4,44 @@ import com.ss.utopia.auth.client.email.AbstractUrlEmail;
 import com.ss.utopia.auth.client.email.AccountConfirmationEmail;
 import com.ss.utopia.auth.client.email.DeleteAccountEmail;
 import com.ss.utopia.auth.client.email.PasswordResetEmail;
+import com.ss.utopia.auth.exception.EmailCircuitOpenException;
 import com.ss.utopia.auth.exception.EmailNotSentException;
-import java.util.UUID;
+import com.ss.utopia.auth.exception.EmailRejectedException;
+import com.ss.utopia.auth.jfr.EmailSendEvent;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * Sends emails through the SES email endpoint.
+ *
+ * <p>Requests go through a pooled HTTP client with bounded connect, read and pool wait times, and
+ * through a {@link CircuitBreaker} so an unavailable endpoint fails fast with an
+ * {@link EmailCircuitOpenException} instead of holding the calling thread for the full timeout.
+ * Only I/O errors, timeouts, 5xx and 429 responses count as breaker failures; other 4xx responses
+ * are thrown as {@link EmailRejectedException} and leave the breaker closed, since the service
+ * answered and bad recipients or payloads say nothing about its health.
+ */
 @Slf4j
 @RequiredArgsConstructor
 @Service
@@ -33,8 +57,27 @@ public class RestTemplateEmailClient implements EmailClient {
   @Setter
   private String deletionBaseUrl;
 
+  @Setter
+  private int maxConnections = 20;
+  @Setter
+  private int connectTimeoutMillis = 2_000;
+  @Setter
+  private int readTimeoutMillis = 5_000;
+  @Setter
+  private int connectionRequestTimeoutMillis = 1_000;
+  @Setter
+  private long keepAliveMillis = 30_000;
+  @Setter
+  private int breakerFailureThreshold = 5;
+  @Setter
+  private long breakerOpenMillis = 30_000;
+
+  private final AuthMetrics authMetrics;
+
   private RestTemplateBuilder builder;
   private RestTemplate restTemplate;
+  private CloseableHttpClient httpClient;
+  private CircuitBreaker circuitBreaker;
 
   @Autowired
   public void setBuilder(RestTemplateBuilder builder) {
@@ -43,36 +86,102 @@ public class RestTemplateEmailClient implements EmailClient {
 
   @PostConstruct
   public void postConstruct() {
-    restTemplate = builder.build();
+    var connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+    var requestConfig = RequestConfig.custom()
+        .setConnectTimeout(connectTimeoutMillis)
+        .setSocketTimeout(readTimeoutMillis)
+        .setConnectionRequestTimeout(connectionRequestTimeoutMillis)
+        .build();
+
+    httpClient = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .setKeepAliveStrategy((response, context) -> keepAliveMillis)
+        .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+        .build();
+
+    restTemplate = builder
+        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+        .build();
+    circuitBreaker = new CircuitBreaker(breakerFailureThreshold, breakerOpenMillis);
+    authMetrics.monitorEmailClient(circuitBreaker, connectionManager);
+  }
+
+  @PreDestroy
+  public void preDestroy() throws IOException {
+    httpClient.close();
   }
 
   @Override
   public void sendForgetPasswordEmail(String token, String recipientEmail) {
     var resetPasswordUrl = passwordResetBaseUrl + "/" + token;
 
-    var email = new PasswordResetEmail(recipientEmail, resetPasswordUrl);
-    var response = restTemplate.postForEntity(sesEndpoint, email, String.class);
-
-    handleResponse(response, email);
+    send(new PasswordResetEmail(recipientEmail, resetPasswordUrl));
   }
 
   @Override
-  public void sendConfirmAccountEmail(String recipientEmail, UUID confirmationToken) {
+  public void sendConfirmAccountEmail(String recipientEmail, String confirmationToken) {
     var confirmationUrl = confirmationBaseUrl + "/" + confirmationToken;
 
-    var email = new AccountConfirmationEmail(recipientEmail, confirmationUrl);
-    var response = restTemplate.postForEntity(sesEndpoint, email, String.class);
-
-    handleResponse(response, email);
+    send(new AccountConfirmationEmail(recipientEmail, confirmationUrl));
   }
 
   @Override
-  public void sendDeleteAccountEmail(String recipient, UUID token) {
+  public void sendDeleteAccountEmail(String recipient, String token) {
     var deletionUrl = deletionBaseUrl + "/" + token;
-    var email = new DeleteAccountEmail(recipient, deletionUrl);
-    var response = restTemplate.postForEntity(sesEndpoint, email, String.class);
 
-    handleResponse(response, email);
+    send(new DeleteAccountEmail(recipient, deletionUrl));
+  }
+
+  public CircuitBreaker.State getCircuitBreakerState() {
+    return circuitBreaker.getState();
+  }
+
+  private void send(AbstractUrlEmail email) {
+    if (!circuitBreaker.tryAcquire()) {
+      log.warn("Email circuit breaker open, not sending " + email.getSubject());
+      throw new EmailCircuitOpenException();
+    }
+
+    var emailType = email.getClass().getSimpleName();
+    var event = new EmailSendEvent();
+    event.begin();
+    var start = System.nanoTime();
+    var success = false;
+    var serviceFailure = true;
+    try {
+      var response = restTemplate.postForEntity(sesEndpoint, email, String.class);
+      handleResponse(response, email);
+      success = true;
+      serviceFailure = false;
+    } catch (EmailRejectedException ex) {
+      serviceFailure = false;
+      throw ex;
+    } catch (HttpStatusCodeException ex) {
+      log.error("Email service answered " + ex.getRawStatusCode() + " for " + email.getSubject());
+      var status = HttpStatus.resolve(ex.getRawStatusCode());
+      var notSent = notSent(ex.getResponseBodyAsString(), status);
+      serviceFailure = !(notSent instanceof EmailRejectedException);
+      throw notSent;
+    } catch (RestClientException ex) {
+      log.error("Unable to reach email service: " + ex.getMessage());
+      serviceFailure = ex instanceof ResourceAccessException;
+      throw new EmailNotSentException(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    } finally {
+      var nanos = System.nanoTime() - start;
+      authMetrics.recordEmail(emailType, success, nanos);
+      event.setEmailType(emailType);
+      event.setSuccess(success);
+      event.commit();
+      if (serviceFailure) {
+        circuitBreaker.onFailure();
+      } else {
+        circuitBreaker.onSuccess();
+      }
+    }
   }
 
   private void handleResponse(ResponseEntity<String> response, AbstractUrlEmail email) {
@@ -86,7 +195,17 @@ public class RestTemplateEmailClient implements EmailClient {
       log.error("Unable to send confirmation email.");
       log.error("Status code: " + response.getStatusCode().value());
       log.error("Response body: " + response.getBody());
-      throw new EmailNotSentException(response.getBody(), response.getStatusCode());
+      throw notSent(response.getBody(), response.getStatusCode());
+    }
+  }
+
+  /**
+   * Client errors other than 429 are rejections that won't succeed on retry.
+   */
+  private static EmailNotSentException notSent(String body, HttpStatus status) {
+    if (status != null && status.is4xxClientError() && status != HttpStatus.TOO_MANY_REQUESTS) {
+      return new EmailRejectedException(body, status);
     }
+    return new EmailNotSentException(body, status);
   }
 }
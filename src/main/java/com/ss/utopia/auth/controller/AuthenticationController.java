@@ -0,0 +1,70 @@
+package com.ss.utopia.auth.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.utopia.auth.dto.AuthResponse;
+import com.ss.utopia.auth.dto.IntrospectTokensDto;
+import com.ss.utopia.auth.dto.RefreshTokenDto;
+import com.ss.utopia.auth.security.SecurityConstants;
+import com.ss.utopia.auth.security.permissions.ServiceOnlyPermission;
+import com.ss.utopia.auth.service.RefreshTokenService;
+import com.ss.utopia.auth.service.TokenIntrospectionService;
+import javax.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Token endpoints other than the credential login, which is handled by the security filter chain.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class AuthenticationController {
+
+  private final RefreshTokenService refreshTokenService;
+  private final SecurityConstants securityConstants;
+  private final TokenIntrospectionService tokenIntrospectionService;
+  private final ObjectMapper objectMapper;
+
+  @PostMapping(value = "${com.ss.utopia.auth.endpoint:/login}/refresh",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshTokenDto refreshTokenDto) {
+    var authResponse = refreshTokenService.refresh(refreshTokenDto.getRefreshToken());
+    return ResponseEntity.ok()
+        .header(securityConstants.getJwtHeaderName(), authResponse.getToken())
+        .body(authResponse);
+  }
+
+  /**
+   * Introspect a batch of access tokens for services that cannot verify them themselves. Answers
+   * with a JSON array holding one result per token, in request order, written as each token is
+   * verified.
+   */
+  @ServiceOnlyPermission
+  @PostMapping(value = "${com.ss.utopia.auth.endpoint:/login}/introspect",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> introspect(
+      @Valid @RequestBody IntrospectTokensDto introspectTokensDto) {
+    var tokens = introspectTokensDto.getTokens();
+    log.debug("Introspect tokens count=" + tokens.size());
+    StreamingResponseBody body = outputStream -> {
+      var generator = objectMapper.getFactory().createGenerator(outputStream);
+      generator.writeStartArray();
+      for (var token : tokens) {
+        generator.writeObject(tokenIntrospectionService.introspect(token));
+      }
+      generator.writeEndArray();
+      generator.flush();
+    };
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(body);
+  }
+}
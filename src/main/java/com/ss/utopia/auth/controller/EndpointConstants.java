@@ -3,6 +3,7 @@ package com.ss.utopia.auth.controller;
 public class EndpointConstants {
 
   public static final String API_V_0_1_ACCOUNTS = "/api/v0.1/accounts";
+  public static final String JWKS = "/.well-known/jwks.json";
 
   private EndpointConstants() {
   }
@@ -0,0 +1,38 @@
+package com.ss.utopia.auth.controller;
+
+import com.ss.utopia.auth.security.JsonWebKeySet;
+import com.ss.utopia.auth.security.JwtTokenEngine;
+import com.ss.utopia.auth.security.SecurityConstants;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Publishes the public verification keys so other services can verify tokens locally.
+ *
+ * <p>Responses carry an ETag and are publicly cacheable. Conditional requests with a matching
+ * {@code If-None-Match} are answered with a 304 by Spring MVC without writing the body.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+  private final JwtTokenEngine jwtTokenEngine;
+  private final SecurityConstants securityConstants;
+
+  @GetMapping(value = EndpointConstants.JWKS, produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<JsonWebKeySet> getJsonWebKeySet() {
+    var jwks = jwtTokenEngine.getJsonWebKeySet();
+    var cacheControl = CacheControl
+        .maxAge(securityConstants.getJwksMaxAgeSeconds(), TimeUnit.SECONDS)
+        .cachePublic();
+    return ResponseEntity.ok()
+        .cacheControl(cacheControl)
+        .eTag(jwks.getEtag())
+        .body(jwks);
+  }
+}
@@ -1,14 +1,22 @@
 package com.ss.utopia.auth.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.utopia.auth.dto.AccountLookupDto;
+import com.ss.utopia.auth.dto.AccountLookupResultDto;
 import com.ss.utopia.auth.dto.CreateUserAccountDto;
 import com.ss.utopia.auth.dto.DeleteAccountDto;
 import com.ss.utopia.auth.dto.NewPasswordDto;
+import com.ss.utopia.auth.dto.ResendConfirmationDto;
 import com.ss.utopia.auth.dto.ResetPasswordDto;
+import com.ss.utopia.auth.dto.UserAccountPageDto;
 import com.ss.utopia.auth.entity.UserAccount;
 import com.ss.utopia.auth.security.permissions.AdminOnlyPermission;
 import com.ss.utopia.auth.security.permissions.ServiceOnlyPermission;
+import com.ss.utopia.auth.service.PasswordResetRequestQueue;
 import com.ss.utopia.auth.service.PasswordResetService;
 import com.ss.utopia.auth.service.UserAccountService;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
 import java.util.UUID;
@@ -27,7 +35,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
@@ -35,8 +45,12 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class UserAccountController {
 
+  private static final int MAX_PAGE_SIZE = 1000;
+
   private final UserAccountService userAccountService;
   private final PasswordResetService passwordResetService;
+  private final PasswordResetRequestQueue passwordResetRequestQueue;
+  private final ObjectMapper objectMapper;
 
   @AdminOnlyPermission
   @GetMapping(produces = {MediaType.APPLICATION_XML_VALUE, MediaType.APPLICATION_JSON_VALUE})
@@ -48,6 +62,57 @@ public class UserAccountController {
     return ResponseEntity.ok(accounts);
   }
 
+  @AdminOnlyPermission
+  @GetMapping(value = "/page", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<UserAccountPageDto> getAccountPage(
+      @RequestParam(required = false) UUID after,
+      @RequestParam(defaultValue = "100") int limit) {
+    var boundedLimit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    return ResponseEntity.ok(userAccountService.getAccountPage(after, boundedLimit));
+  }
+
+  /**
+   * All accounts as newline-delimited JSON, written as they are read so the full list is never
+   * held in memory.
+   */
+  @AdminOnlyPermission
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportAccounts() {
+    StreamingResponseBody body = outputStream -> {
+      var generator = objectMapper.getFactory().createGenerator(outputStream);
+      generator.setRootValueSeparator(null);
+      userAccountService.forEachAccountSummary(account -> {
+        try {
+          generator.writeObject(account);
+          generator.writeRaw('\n');
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      });
+      generator.flush();
+    };
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(body);
+  }
+
+  /**
+   * Resolve a batch of account ids and emails at once. Answers in JSON or, for callers sending
+   * {@code Accept: application/cbor}, in the more compact CBOR encoding.
+   */
+  @ServiceOnlyPermission
+  @PostMapping(value = "/lookup",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE},
+      produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+  public ResponseEntity<AccountLookupResultDto> lookupAccounts(
+      @Valid @RequestBody AccountLookupDto accountLookupDto) {
+    var ids = accountLookupDto.getIds();
+    var emails = accountLookupDto.getEmails();
+    var result = userAccountService.lookupAccounts(ids == null ? List.of() : ids,
+                                                   emails == null ? List.of() : emails);
+    return ResponseEntity.ok(result);
+  }
+
   @PostMapping(consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.APPLICATION_JSON_VALUE})
   public ResponseEntity<UUID> createNewAccount(@Valid @RequestBody
                                                    CreateUserAccountDto createUserAccountDto) {
@@ -58,18 +123,34 @@ public class UserAccountController {
     return ResponseEntity.created(uri).body(userId);
   }
 
-  @PutMapping("/confirm/{confirmationTokenId}")
-  public ResponseEntity<Void> confirmAccountRegistration(@PathVariable UUID confirmationTokenId) {
-    userAccountService.confirmAccountRegistration(confirmationTokenId);
+  @PutMapping("/confirm/{confirmationToken}")
+  public ResponseEntity<Void> confirmAccountRegistration(@PathVariable String confirmationToken) {
+    userAccountService.confirmAccountRegistration(confirmationToken);
     return ResponseEntity.noContent().build();
   }
 
+  /**
+   * Send the confirmation email again. Always answers 202, whether or not the email belongs to an
+   * unconfirmed account, so the endpoint cannot be used to discover accounts.
+   */
+  @PostMapping(value = "/confirm/resend",
+      consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public ResponseEntity<Void> resendAccountConfirmation(@Valid @RequestBody
+                                                            ResendConfirmationDto dto) {
+    userAccountService.resendAccountConfirmation(dto.getEmail());
+    return ResponseEntity.accepted().build();
+  }
+
+  /**
+   * Accept a password reset request. Always answers 202 once queued, whether or not the email
+   * belongs to an account, so the endpoint cannot be used to discover accounts.
+   */
   @PostMapping(value = "/password-reset",
       consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.APPLICATION_JSON_VALUE})
   public ResponseEntity<Void> addPasswordReset(@Valid @RequestBody
                                                    ResetPasswordDto resetPasswordDto) {
-    passwordResetService.addPasswordReset(resetPasswordDto);
-    return ResponseEntity.ok().build();
+    passwordResetRequestQueue.submit(resetPasswordDto);
+    return ResponseEntity.accepted().build();
   }
 
   @GetMapping(value = "/new-password/{token}",
@@ -117,7 +198,7 @@ public class UserAccountController {
 
   @ServiceOnlyPermission
   @DeleteMapping("/customer/{confirmationToken}")
-  public ResponseEntity<UUID> completeCustomerDeletion(@PathVariable UUID confirmationToken) {
+  public ResponseEntity<UUID> completeCustomerDeletion(@PathVariable String confirmationToken) {
     var accountId = userAccountService.completeCustomerDeletion(confirmationToken);
     return ResponseEntity.ok(accountId);
   }
@@ -0,0 +1,32 @@
+package com.ss.utopia.auth.controller;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+  // prototype scoped by Boot, so setting the factory here leaves the JSON mapper alone
+  private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+  /**
+   * Serves {@code application/cbor} alongside JSON for endpoints that declare it, ie bulk lookups
+   * where payload size matters more than readability.
+   *
+   * <p>MVC's default CBOR converter uses a plain mapper, so it is swapped for one built from Boot's
+   * builder. Both formats then share the same {@code spring.jackson} settings.
+   */
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    var cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+    converters.removeIf(MappingJackson2CborHttpMessageConverter.class::isInstance);
+    converters.add(new MappingJackson2CborHttpMessageConverter(cborMapper));
+  }
+}
@@ -0,0 +1,27 @@
+package com.ss.utopia.auth.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AccountLookupDto {
+
+  public static final int MAX_KEYS = 1000;
+
+  @Size(max = MAX_KEYS)
+  @Builder.Default
+  private List<UUID> ids = new ArrayList<>();
+
+  @Size(max = MAX_KEYS)
+  @Builder.Default
+  private List<String> emails = new ArrayList<>();
+}
@@ -0,0 +1,22 @@
+package com.ss.utopia.auth.dto;
+
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Accounts found by a bulk lookup, and the requested ids and emails no account matched.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AccountLookupResultDto {
+
+  private List<UserAccountSummaryDto> accounts;
+  private List<UUID> missingIds;
+  private List<String> missingEmails;
+}
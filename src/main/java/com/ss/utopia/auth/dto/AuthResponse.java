@@ -14,4 +14,5 @@ public class AuthResponse {
   private UUID userId;
   private String token;
   private long expiresAt;
+  private String refreshToken;
 }
@@ -0,0 +1,25 @@
+package com.ss.utopia.auth.dto;
+
+import java.util.List;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class IntrospectTokensDto {
+
+  public static final int MAX_TOKENS = 1000;
+
+  /**
+   * Access tokens, with or without the header prefix.
+   */
+  @NotEmpty
+  @Size(max = MAX_TOKENS)
+  private List<String> tokens;
+}
@@ -0,0 +1,17 @@
+package com.ss.utopia.auth.dto;
+
+import javax.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RefreshTokenDto {
+
+  @NotBlank
+  private String refreshToken;
+}
@@ -0,0 +1,21 @@
+package com.ss.utopia.auth.dto;
+
+import javax.validation.constraints.Email;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResendConfirmationDto {
+
+  @NotNull
+  @NotBlank(message = "Email cannot be blank.")
+  @Email(message = "Email must be valid.")
+  private String email;
+}
@@ -0,0 +1,39 @@
+package com.ss.utopia.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of introspecting one token. Active tokens carry their principal, authorities and expiry
+ * (epoch millis), inactive ones only an error.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(Include.NON_NULL)
+public class TokenIntrospectionDto {
+
+  private boolean active;
+  private UUID userId;
+  private String email;
+  private List<String> authorities;
+  private Long expiresAt;
+  private ErrorCode error;
+
+  public enum ErrorCode {
+    EXPIRED,
+    MALFORMED,
+    INVALID
+  }
+
+  public static TokenIntrospectionDto inactive(ErrorCode error) {
+    return TokenIntrospectionDto.builder().error(error).build();
+  }
+}
@@ -0,0 +1,21 @@
+package com.ss.utopia.auth.dto;
+
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserAccountPageDto {
+
+  private List<UserAccountSummaryDto> accounts;
+  /**
+   * Pass as {@code after} to get the next page, null on the last page.
+   */
+  private UUID nextCursor;
+}
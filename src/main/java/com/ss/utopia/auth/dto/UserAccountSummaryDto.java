@@ -0,0 +1,28 @@
+package com.ss.utopia.auth.dto;
+
+import com.ss.utopia.auth.entity.UserRole;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Account fields safe to list. Selected directly in queries so the password hash is never loaded.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserAccountSummaryDto {
+
+  private UUID id;
+  private String email;
+  private UserRole userRole;
+  private ZonedDateTime creationDateTime;
+  private ZonedDateTime lastModifiedDateTime;
+  private boolean enabled;
+  private boolean accountNonLocked;
+  private boolean confirmed;
+}
@@ -7,24 +7,30 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
 
 @Entity
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Table(indexes = {@Index(columnList = "ownerAccountId,action,expiresAt"),
+    @Index(columnList = "expiresAt")})
 public class AccountActionToken {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
+  @GeneratedValue(generator = TimeOrderedUuidGenerator.NAME)
+  @GenericGenerator(name = TimeOrderedUuidGenerator.NAME,
+      strategy = "com.ss.utopia.auth.entity.TimeOrderedUuidGenerator")
   @Column(columnDefinition = "BINARY(16)")
   private UUID token;
 
@@ -40,6 +46,12 @@ public class AccountActionToken {
   @CreationTimestamp
   private ZonedDateTime creation;
 
+  /**
+   * Fixed when the token is issued, so expiry can be checked and indexed by the database. Moved
+   * to the time of use when the token is consumed, so used tokens are reaped as expired ones.
+   */
+  private ZonedDateTime expiresAt;
+
   @Builder.Default
   private boolean active = true;
 
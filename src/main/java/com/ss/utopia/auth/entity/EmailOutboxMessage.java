@@ -0,0 +1,92 @@
+package com.ss.utopia.auth.entity;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+
+/**
+ * An email waiting to be sent. Rows are written in the same transaction as the change that
+ * triggers the email and deleted once the email has been sent.
+ *
+ * <p>A pending row holds the raw token of the link it will send, so the table is as sensitive as
+ * the links themselves. The token is cleared when a message is given up on.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(indexes = {
+    @Index(columnList = "status,nextAttemptAt"),
+    @Index(columnList = "claimToken")
+})
+public class EmailOutboxMessage {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @NotNull
+  @Enumerated(EnumType.STRING)
+  private EmailType type;
+
+  @NotNull
+  private String recipient;
+
+  /**
+   * Raw token for the emailed link, blank once the message is {@link Status#FAILED}. Blank
+   * rather than null so existing NOT NULL columns need no change.
+   */
+  @NotNull
+  @ToString.Exclude
+  private String token;
+
+  @Builder.Default
+  @Enumerated(EnumType.STRING)
+  private Status status = Status.PENDING;
+
+  private int attempts;
+
+  /**
+   * Earliest time the message may be picked up. Pushed forward while a dispatcher holds the
+   * message so a dispatcher that dies mid-send only delays it.
+   */
+  @NotNull
+  private ZonedDateTime nextAttemptAt;
+
+  @Column(columnDefinition = "BINARY(16)")
+  private UUID claimToken;
+
+  @Column(length = 1000)
+  private String lastError;
+
+  @Column(updatable = false)
+  @CreationTimestamp
+  private ZonedDateTime creation;
+
+  public enum EmailType {
+    PASSWORD_RESET,
+    ACCOUNT_CONFIRMATION,
+    ACCOUNT_DELETION
+  }
+
+  public enum Status {
+    PENDING,
+    FAILED
+  }
+}
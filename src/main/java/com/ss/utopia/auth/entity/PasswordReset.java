@@ -7,17 +7,25 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 
+/**
+ * A pending password reset. Only the SHA-256 hash of the emailed token is stored.
+ */
 @Data
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Table(indexes = @Index(columnList = "userId"))
 public class PasswordReset {
 
   @Id
@@ -29,8 +37,10 @@ public class PasswordReset {
 
   private String email;
 
-  @Column(unique = true)
-  private String token;
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @Column(columnDefinition = "BINARY(32)", unique = true)
+  private byte[] tokenHash;
 
   @Column(updatable = false)
   @CreationTimestamp
@@ -0,0 +1,60 @@
+package com.ss.utopia.auth.entity;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+
+/**
+ * A single-use refresh token. Only the SHA-256 hash of the token is stored.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(indexes = {@Index(columnList = "ownerAccountId"), @Index(columnList = "expiresAt")})
+public class RefreshToken {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  @Column(columnDefinition = "BINARY(16)")
+  private UUID id;
+
+  @NotNull
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @Column(columnDefinition = "BINARY(32)", unique = true, nullable = false)
+  private byte[] tokenHash;
+
+  @NotNull
+  @Column(columnDefinition = "BINARY(16)")
+  private UUID ownerAccountId;
+
+  /**
+   * When the token expires. Using a token moves this to the end of the reuse detection window,
+   * after which the row is deleted.
+   */
+  @NotNull
+  private ZonedDateTime expiresAt;
+
+  @Column(updatable = false)
+  @CreationTimestamp
+  private ZonedDateTime creation;
+
+  @Builder.Default
+  private boolean used = false;
+}
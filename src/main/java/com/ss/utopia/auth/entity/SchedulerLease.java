@@ -0,0 +1,31 @@
+package com.ss.utopia.auth.entity;
+
+import java.time.ZonedDateTime;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A named lease that lets one instance at a time run a scheduled job. Whoever holds an unexpired
+ * lease owns the job, anyone may take over an expired one.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SchedulerLease {
+
+  @Id
+  private String name;
+
+  @NotNull
+  private String owner;
+
+  @NotNull
+  private ZonedDateTime leaseUntil;
+}
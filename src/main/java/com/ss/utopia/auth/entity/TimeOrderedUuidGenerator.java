@@ -0,0 +1,37 @@
+package com.ss.utopia.auth.entity;
+
+import java.io.Serializable;
+import java.security.SecureRandom;
+import java.util.UUID;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Generates version 7 (time-ordered) UUIDs: a 48 bit millisecond timestamp followed by 74 random
+ * bits.
+ *
+ * <p>Stored as {@code BINARY(16)} the timestamp comes first, so new keys land at the right edge
+ * of a clustered index instead of splitting pages all over it. Existing random (version 4) keys
+ * are still valid ids, they just sort wherever they happen to fall.
+ */
+public class TimeOrderedUuidGenerator implements IdentifierGenerator {
+
+  public static final String NAME = "time-ordered-uuid";
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  public static UUID generate() {
+    return generate(System.currentTimeMillis());
+  }
+
+  public static UUID generate(long epochMillis) {
+    var mostSigBits = (epochMillis << 16) | 0x7000L | (RANDOM.nextInt() & 0x0FFFL);
+    var leastSigBits = (RANDOM.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+    return new UUID(mostSigBits, leastSigBits);
+  }
+
+  @Override
+  public Serializable generate(SharedSessionContractImplementor session, Object object) {
+    return generate();
+  }
+}
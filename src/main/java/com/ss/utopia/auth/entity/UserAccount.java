@@ -1,8 +1,10 @@
 package com.ss.utopia.auth.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.ZonedDateTime;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
 import javax.persistence.Column;
@@ -10,8 +12,11 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
@@ -21,6 +26,7 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -31,10 +37,20 @@ import org.springframework.security.core.userdetails.UserDetails;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Table(uniqueConstraints = @UniqueConstraint(name = UserAccount.NORMALIZED_EMAIL_KEY,
+    columnNames = "normalizedEmail"))
 public class UserAccount implements UserDetails {
 
+  /**
+   * Name of the unique constraint on {@link #normalizedEmail}, to tell duplicate emails from other
+   * integrity violations.
+   */
+  public static final String NORMALIZED_EMAIL_KEY = "uk_user_account_normalized_email";
+
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
+  @GeneratedValue(generator = TimeOrderedUuidGenerator.NAME)
+  @GenericGenerator(name = TimeOrderedUuidGenerator.NAME,
+      strategy = "com.ss.utopia.auth.entity.TimeOrderedUuidGenerator")
   @Column(columnDefinition = "BINARY(16)")
   private UUID id;
 
@@ -42,6 +58,14 @@ public class UserAccount implements UserDetails {
   @Email
   private String email;
 
+  /**
+   * Lower-cased, trimmed {@link #email}, kept in sync on every write. All lookups by email go
+   * through this column and its unique index.
+   */
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  private String normalizedEmail;
+
   @ToString.Exclude
   @EqualsAndHashCode.Exclude
   @NotBlank
@@ -69,6 +93,15 @@ public class UserAccount implements UserDetails {
   @Builder.Default
   private boolean confirmed = false;
 
+  /**
+   * Signed into stateless action tokens and incremented when one is used, which makes every token
+   * issued before unusable. Only ever changed by a conditional update, never by saving the entity.
+   */
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  @Column(updatable = false)
+  private int tokenVersion;
+
   public Collection<? extends GrantedAuthority> getAuthorities() {
     if (userRole == null) {
       return Collections.emptySet();
@@ -81,4 +114,14 @@ public class UserAccount implements UserDetails {
     return email;
   }
 
+  public static String normalizeEmail(String email) {
+    return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+  }
+
+  @PrePersist
+  @PreUpdate
+  void updateNormalizedEmail() {
+    normalizedEmail = normalizeEmail(email);
+  }
+
 }
@@ -0,0 +1,18 @@
+package com.ss.utopia.auth.exception;
+
+/**
+ * A bounded work queue is full. Answered with a 503 and a {@code Retry-After} header.
+ */
+public class CapacityExceededException extends IllegalStateException {
+
+  private final long retryAfterSeconds;
+
+  public CapacityExceededException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
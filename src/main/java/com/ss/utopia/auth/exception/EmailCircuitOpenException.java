@@ -0,0 +1,13 @@
+package com.ss.utopia.auth.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * An email that was refused by the circuit breaker without reaching the email service.
+ */
+public class EmailCircuitOpenException extends EmailNotSentException {
+
+  public EmailCircuitOpenException() {
+    super("Email service unavailable.", HttpStatus.SERVICE_UNAVAILABLE);
+  }
+}
@@ -0,0 +1,14 @@
+package com.ss.utopia.auth.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * An email the email service refused with a client error, ie a bad recipient or payload. Sending
+ * it again would fail the same way.
+ */
+public class EmailRejectedException extends EmailNotSentException {
+
+  public EmailRejectedException(String body, HttpStatus statusCode) {
+    super(body, statusCode);
+  }
+}
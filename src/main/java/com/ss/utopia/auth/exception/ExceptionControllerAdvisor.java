@@ -4,7 +4,9 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
+import javax.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -72,6 +74,14 @@ public class ExceptionControllerAdvisor {
     return baseResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
   }
 
+  @ResponseStatus(HttpStatus.UNAUTHORIZED)
+  @ExceptionHandler(InvalidRefreshTokenException.class)
+  public Map<String, Object> handleInvalidRefreshTokenException(InvalidRefreshTokenException ex) {
+    log.warn(ex.getMessage());
+
+    return baseResponse(ex.getMessage(), HttpStatus.UNAUTHORIZED);
+  }
+
   @ResponseStatus(HttpStatus.CONFLICT)
   @ExceptionHandler(IllegalCustomerAccountDeletionException.class)
   public Map<String, Object> illegalCustomerAccountDeletionException(
@@ -83,6 +93,17 @@ public class ExceptionControllerAdvisor {
     return baseResponse;
   }
 
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  @ExceptionHandler(CapacityExceededException.class)
+  public Map<String, Object> handleCapacityExceededException(
+      CapacityExceededException ex, HttpServletResponse response) {
+    log.warn(ex.getMessage());
+
+    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+    return baseResponse("Service is busy. Please try again shortly.",
+                        HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
   private String getErrorMessageOrDefault(FieldError error) {
     var msg = error.getDefaultMessage();
     msg = msg == null || msg.isBlank() ? "Unknown validation failure." : msg;
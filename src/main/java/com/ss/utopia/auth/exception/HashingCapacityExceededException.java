@@ -0,0 +1,9 @@
+package com.ss.utopia.auth.exception;
+
+public class HashingCapacityExceededException extends CapacityExceededException {
+
+  public HashingCapacityExceededException(long retryAfterSeconds) {
+    super("Password hashing capacity exceeded. Retry after " + retryAfterSeconds + " second(s).",
+          retryAfterSeconds);
+  }
+}
@@ -0,0 +1,8 @@
+package com.ss.utopia.auth.exception;
+
+public class InvalidRefreshTokenException extends IllegalStateException {
+
+  public InvalidRefreshTokenException(String reason) {
+    super("Invalid refresh token: " + reason);
+  }
+}
@@ -1,6 +1,8 @@
 package com.ss.utopia.auth.exception;
 
+import com.ss.utopia.auth.entity.AccountAction;
 import com.ss.utopia.auth.entity.AccountActionToken;
+import java.util.UUID;
 
 public class InvalidTokenException extends IllegalStateException {
 
@@ -9,6 +11,14 @@ public class InvalidTokenException extends IllegalStateException {
   }
 
   public InvalidTokenException(AccountActionToken token) {
-    super("Invalid action token id=" + token.getToken());
+    this(token.getToken());
+  }
+
+  public InvalidTokenException(UUID token) {
+    super("Invalid action token id=" + token);
+  }
+
+  public InvalidTokenException(AccountAction action, UUID ownerAccountId) {
+    super("Invalid " + action + " token for account=" + ownerAccountId);
   }
 }
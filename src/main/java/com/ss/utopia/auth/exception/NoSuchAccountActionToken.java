@@ -8,4 +8,8 @@ public class NoSuchAccountActionToken extends NoSuchElementException {
   public NoSuchAccountActionToken(UUID confirmationTokenId) {
     super("No AccountActionToken found with id=" + confirmationTokenId);
   }
+
+  public NoSuchAccountActionToken(String token) {
+    super("No AccountActionToken found for token=" + token);
+  }
 }
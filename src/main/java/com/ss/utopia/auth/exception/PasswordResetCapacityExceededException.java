@@ -0,0 +1,9 @@
+package com.ss.utopia.auth.exception;
+
+public class PasswordResetCapacityExceededException extends CapacityExceededException {
+
+  public PasswordResetCapacityExceededException(long retryAfterSeconds) {
+    super("Password reset queue full. Retry after " + retryAfterSeconds + " second(s).",
+          retryAfterSeconds);
+  }
+}
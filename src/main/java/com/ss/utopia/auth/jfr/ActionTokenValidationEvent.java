@@ -0,0 +1,21 @@
+package com.ss.utopia.auth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.ss.utopia.auth.ActionTokenValidation")
+@Label("Action Token Validation")
+@Category({"Utopia", "Auth"})
+@StackTrace(false)
+@Setter
+public class ActionTokenValidationEvent extends jdk.jfr.Event {
+
+  @Label("Action")
+  private String action;
+
+  @Label("Valid")
+  private boolean valid;
+}
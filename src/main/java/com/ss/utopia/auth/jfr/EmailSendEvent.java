@@ -0,0 +1,23 @@
+package com.ss.utopia.auth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.ss.utopia.auth.EmailSend")
+@Label("Email Send")
+@Description("Request to the email endpoint. Calls refused by the circuit breaker are skipped.")
+@Category({"Utopia", "Auth"})
+@StackTrace(false)
+@Setter
+public class EmailSendEvent extends jdk.jfr.Event {
+
+  @Label("Email Type")
+  private String emailType;
+
+  @Label("Success")
+  private boolean success;
+}
@@ -0,0 +1,23 @@
+package com.ss.utopia.auth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.ss.utopia.auth.Login")
+@Label("Login")
+@Description("Credentials received at the authentication endpoint until the response is written.")
+@Category({"Utopia", "Auth"})
+@StackTrace(false)
+@Setter
+public class LoginEvent extends jdk.jfr.Event {
+
+  @Label("Success")
+  private boolean success;
+
+  @Label("Role")
+  private String role;
+}
@@ -0,0 +1,20 @@
+package com.ss.utopia.auth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.ss.utopia.auth.PasswordMatch")
+@Label("Password Match")
+@Description("BCrypt password check, including time queued for a hashing thread.")
+@Category({"Utopia", "Auth"})
+@StackTrace(false)
+@Setter
+public class PasswordMatchEvent extends jdk.jfr.Event {
+
+  @Label("Matched")
+  private boolean matched;
+}
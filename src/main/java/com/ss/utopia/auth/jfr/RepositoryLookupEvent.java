@@ -0,0 +1,49 @@
+package com.ss.utopia.auth.jfr;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.ss.utopia.auth.RepositoryLookup")
+@Label("Repository Lookup")
+@Category({"Utopia", "Auth"})
+@StackTrace(false)
+public class RepositoryLookupEvent extends jdk.jfr.Event {
+
+  @Label("Entity")
+  private Class<?> entity;
+
+  @Label("Lookup By")
+  private String lookupBy;
+
+  @Label("Found")
+  private boolean found;
+
+  /**
+   * Run a single entity lookup, recording it as an event.
+   *
+   * @param entity   the entity type looked up.
+   * @param lookupBy the kind of key used, ie "email" or "token". Never the key itself.
+   * @param lookup   the repository call.
+   */
+  public static <T> Optional<T> record(Class<T> entity,
+                                       String lookupBy,
+                                       Supplier<Optional<T>> lookup) {
+    var event = new RepositoryLookupEvent();
+    event.begin();
+    var found = false;
+    try {
+      var result = lookup.get();
+      found = result.isPresent();
+      return result;
+    } finally {
+      event.entity = entity;
+      event.lookupBy = lookupBy;
+      event.found = found;
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.ss.utopia.auth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.ss.utopia.auth.TokenIssue")
+@Label("JWT Issue")
+@Category({"Utopia", "Auth"})
+@StackTrace(false)
+@Setter
+public class TokenIssueEvent extends jdk.jfr.Event {
+
+  @Label("Key Id")
+  private String keyId;
+
+  @Label("Role")
+  private String role;
+}
@@ -0,0 +1,21 @@
+package com.ss.utopia.auth.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.ss.utopia.auth.TokenVerify")
+@Label("JWT Verify")
+@Category({"Utopia", "Auth"})
+@StackTrace(false)
+@Setter
+public class TokenVerifyEvent extends jdk.jfr.Event {
+
+  @Label("Key Id")
+  private String keyId;
+
+  @Label("Valid")
+  private boolean valid;
+}
@@ -0,0 +1,156 @@
+package com.ss.utopia.auth.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.ss.utopia.auth.client.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters for the authentication hot path. Timers are published with percentile histograms.
+ *
+ * <ul>
+ *   <li>{@code utopia.auth.login} - time from receiving credentials to answering, by outcome.</li>
+ *   <li>{@code utopia.auth.bcrypt} - BCrypt time by operation, excluding time queued.</li>
+ *   <li>{@code utopia.auth.jwt} - JWT sign and verify time.</li>
+ *   <li>{@code utopia.auth.email} - email endpoint latency by email type and outcome.</li>
+ *   <li>{@code utopia.auth.email.breaker.state} - 1 for the current state of the email circuit
+ *   breaker and 0 for the others, by state.</li>
+ *   <li>{@code httpcomponents.httpclient.pool.*} tagged {@code httpclient=email} - leased,
+ *   available and pending connections of the email client pool.</li>
+ *   <li>{@code utopia.auth.token.verification.failures} - rejected bearer tokens by reason.</li>
+ *   <li>{@code utopia.auth.reaper} and {@code utopia.auth.reaper.deleted} - time spent and rows
+ *   deleted by {@link com.ss.utopia.auth.service.TokenReaper}, by table.</li>
+ *   <li>{@value #SERVICE_TIMER} - account and password reset service operations, by class and
+ *   method.</li>
+ *   <li>{@code executor.*} tagged {@code name=password.hashing} - queued and active hashes and
+ *   pool size of the BCrypt pool.</li>
+ *   <li>{@code cache.*} tagged {@code cache=verifiedTokens} or {@code cache=userDetails} - hits,
+ *   misses, evictions and size of the token and user details caches.</li>
+ * </ul>
+ */
+@Component
+public class AuthMetrics {
+
+  public static final String SERVICE_TIMER = "utopia.auth.service";
+
+  private final MeterRegistry meterRegistry;
+
+  private final Timer loginSuccess;
+  private final Timer loginFailure;
+  private final Timer bcryptEncode;
+  private final Timer bcryptMatches;
+  private final Timer jwtSign;
+  private final Timer jwtVerify;
+  private final Counter expiredTokens;
+  private final Counter invalidTokens;
+
+  public AuthMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    loginSuccess = timer("utopia.auth.login", "outcome", "success");
+    loginFailure = timer("utopia.auth.login", "outcome", "failure");
+    bcryptEncode = timer("utopia.auth.bcrypt", "operation", "encode");
+    bcryptMatches = timer("utopia.auth.bcrypt", "operation", "matches");
+    jwtSign = timer("utopia.auth.jwt", "operation", "sign");
+    jwtVerify = timer("utopia.auth.jwt", "operation", "verify");
+    expiredTokens = tokenVerificationFailures("expired");
+    invalidTokens = tokenVerificationFailures("invalid");
+  }
+
+  public void recordLogin(boolean success, long nanos) {
+    (success ? loginSuccess : loginFailure).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordBcryptEncode(long nanos) {
+    bcryptEncode.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordBcryptMatches(long nanos) {
+    bcryptMatches.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordJwtSign(long nanos) {
+    jwtSign.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordJwtVerify(long nanos) {
+    jwtVerify.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordEmail(String type, boolean success, long nanos) {
+    timer("utopia.auth.email", "type", type, "outcome", success ? "success" : "failure")
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordExpiredToken() {
+    expiredTokens.increment();
+  }
+
+  /**
+   * Count a bearer token rejected for any reason other than expiry, ie a bad signature or an
+   * unknown key id.
+   */
+  public void recordInvalidToken() {
+    invalidTokens.increment();
+  }
+
+  /**
+   * Publish queue depth, active and completed task counts of an executor, tagged by name.
+   */
+  public void monitorExecutor(ExecutorService executor, String name) {
+    new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(meterRegistry);
+  }
+
+  /**
+   * Publish hit, miss, eviction and size statistics of a cache built with {@code recordStats()}.
+   */
+  public void monitorCache(Cache<?, ?> cache, String name) {
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+  }
+
+  /**
+   * Publish the state of the email circuit breaker and the usage of its connection pool.
+   */
+  public void monitorEmailClient(CircuitBreaker circuitBreaker,
+                                 PoolingHttpClientConnectionManager connectionManager) {
+    for (var state : CircuitBreaker.State.values()) {
+      ToDoubleFunction<CircuitBreaker> inState = breaker -> breaker.getState() == state ? 1 : 0;
+      Gauge.builder("utopia.auth.email.breaker.state", circuitBreaker, inState)
+          .tag("state", state.name().toLowerCase())
+          .register(meterRegistry);
+    }
+    new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "email")
+        .bindTo(meterRegistry);
+  }
+
+  public void recordReaped(String table, int deleted, long nanos) {
+    timer("utopia.auth.reaper", "table", table).record(nanos, TimeUnit.NANOSECONDS);
+    Counter.builder("utopia.auth.reaper.deleted")
+        .tag("table", table)
+        .register(meterRegistry)
+        .increment(deleted);
+  }
+
+  private Timer timer(String name, String... tags) {
+    return Timer.builder(name)
+        .tags(tags)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  private Counter tokenVerificationFailures(String reason) {
+    return Counter.builder("utopia.auth.token.verification.failures")
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+}
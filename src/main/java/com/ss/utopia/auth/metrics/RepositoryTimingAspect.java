@@ -0,0 +1,37 @@
+package com.ss.utopia.auth.metrics;
+
+import com.ss.utopia.auth.metrics.ServerTiming.Phase;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records time spent in Spring Data repositories as the {@link Phase#DB} phase of a request.
+ * Only registered with the {@link ServerTimingFilter}.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "com.ss.utopia.server-timing", name = "enabled",
+    havingValue = "true")
+public class RepositoryTimingAspect {
+
+  private static final ThreadLocal<Boolean> IN_REPOSITORY = new ThreadLocal<>();
+
+  @Around("this(org.springframework.data.repository.Repository)")
+  public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+    // default repository methods call back into the repository, only time the outer call
+    if (!ServerTiming.isActive() || IN_REPOSITORY.get() != null) {
+      return joinPoint.proceed();
+    }
+    IN_REPOSITORY.set(Boolean.TRUE);
+    var start = System.nanoTime();
+    try {
+      return joinPoint.proceed();
+    } finally {
+      ServerTiming.record(Phase.DB, System.nanoTime() - start);
+      IN_REPOSITORY.remove();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.ss.utopia.auth.metrics;
+
+/**
+ * Per-request time spent in each {@link Phase}, reported by {@link ServerTimingFilter}.
+ *
+ * <p>Phases are accumulated in a single array bound to the request thread. When the filter is not
+ * enabled nothing is bound and {@link #record(Phase, long)} returns after a thread local lookup,
+ * without allocating.
+ */
+public final class ServerTiming {
+
+  private static final ThreadLocal<long[]> PHASE_NANOS = new ThreadLocal<>();
+
+  public enum Phase {
+    DB("db"),
+    BCRYPT("bcrypt"),
+    JWT("jwt");
+
+    private final String metricName;
+
+    Phase(String metricName) {
+      this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+      return metricName;
+    }
+  }
+
+  private ServerTiming() {
+  }
+
+  /**
+   * Add time spent in a phase to the current request, if timing is enabled for it.
+   */
+  public static void record(Phase phase, long nanos) {
+    var phaseNanos = PHASE_NANOS.get();
+    if (phaseNanos != null) {
+      phaseNanos[phase.ordinal()] += nanos;
+    }
+  }
+
+  public static boolean isActive() {
+    return PHASE_NANOS.get() != null;
+  }
+
+  static long[] start() {
+    var phaseNanos = new long[Phase.values().length];
+    PHASE_NANOS.set(phaseNanos);
+    return phaseNanos;
+  }
+
+  static void stop() {
+    PHASE_NANOS.remove();
+  }
+}
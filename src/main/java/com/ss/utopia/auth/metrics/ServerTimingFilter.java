@@ -0,0 +1,113 @@
+package com.ss.utopia.auth.metrics;
+
+import com.ss.utopia.auth.metrics.ServerTiming.Phase;
+import java.io.IOException;
+import java.util.Locale;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Adds a {@code Server-Timing} header breaking each response down into {@link Phase phases}, and
+ * logs the same breakdown once the request completes.
+ *
+ * <p>Opt in with {@code com.ss.utopia.server-timing.enabled=true}. Runs ahead of the security
+ * filters so logins handled by {@code JwtAuthenticationFilter} are covered too. The header is added
+ * as the response is committed, since login and error responses may be committed before the
+ * filter chain returns.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "com.ss.utopia.server-timing", name = "enabled",
+    havingValue = "true")
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+  public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request,
+                                  HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+    var start = System.nanoTime();
+    var phaseNanos = ServerTiming.start();
+    var timedResponse = new ServerTimingResponse(response, start, phaseNanos);
+    try {
+      filterChain.doFilter(request, timedResponse);
+    } finally {
+      ServerTiming.stop();
+      timedResponse.addServerTiming();
+      var totalNanos = System.nanoTime() - start;
+      log.info("server-timing method=" + request.getMethod()
+                   + " path=" + request.getRequestURI()
+                   + " status=" + response.getStatus()
+                   + " total=" + millis(totalNanos)
+                   + toLogFields(phaseNanos));
+    }
+  }
+
+  /**
+   * Header value in milliseconds, ie {@code db;dur=1.20, bcrypt;dur=48.31, ..., total;dur=52.07}.
+   */
+  static String toHeaderValue(long[] phaseNanos, long totalNanos) {
+    var value = new StringBuilder();
+    for (var phase : Phase.values()) {
+      value.append(phase.getMetricName())
+          .append(";dur=")
+          .append(millis(phaseNanos[phase.ordinal()]))
+          .append(", ");
+    }
+    return value.append("total;dur=").append(millis(totalNanos)).toString();
+  }
+
+  private static String toLogFields(long[] phaseNanos) {
+    var fields = new StringBuilder();
+    for (var phase : Phase.values()) {
+      fields.append(' ')
+          .append(phase.getMetricName())
+          .append('=')
+          .append(millis(phaseNanos[phase.ordinal()]));
+    }
+    return fields.toString();
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+  }
+
+  /**
+   * Adds the header the first time the response is about to be committed.
+   */
+  private static final class ServerTimingResponse extends OnCommittedResponseWrapper {
+
+    private final long start;
+    private final long[] phaseNanos;
+    private boolean added;
+
+    private ServerTimingResponse(HttpServletResponse response, long start, long[] phaseNanos) {
+      super(response);
+      this.start = start;
+      this.phaseNanos = phaseNanos;
+    }
+
+    @Override
+    protected void onResponseCommitted() {
+      addServerTiming();
+    }
+
+    private void addServerTiming() {
+      if (!added && !isCommitted()) {
+        added = true;
+        setHeader(SERVER_TIMING_HEADER, toHeaderValue(phaseNanos, System.nanoTime() - start));
+      }
+    }
+  }
+}
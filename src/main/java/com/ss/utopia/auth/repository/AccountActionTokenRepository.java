@@ -1,11 +1,69 @@
 package com.ss.utopia.auth.repository;
 
+import com.ss.utopia.auth.entity.AccountAction;
 import com.ss.utopia.auth.entity.AccountActionToken;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface AccountActionTokenRepository extends JpaRepository<AccountActionToken, UUID> {
 
+  @Query("SELECT t.ownerAccountId FROM AccountActionToken t WHERE t.token = :token")
+  Optional<UUID> findOwnerAccountIdByToken(@Param("token") UUID token);
+
+  /**
+   * Unused tokens of an owner for an action that are still valid at the given time, the longest
+   * lived first. Served from the (owner, action, expiry) index.
+   */
+  @Query("SELECT t FROM AccountActionToken t WHERE t.ownerAccountId = :ownerAccountId"
+      + " AND t.action = :action AND t.active = true AND t.expiresAt > :validAt"
+      + " ORDER BY t.expiresAt DESC")
+  List<AccountActionToken> findActiveTokens(@Param("ownerAccountId") UUID ownerAccountId,
+                                            @Param("action") AccountAction action,
+                                            @Param("validAt") ZonedDateTime validAt,
+                                            Pageable pageable);
+
+  boolean existsByExpiresAtIsNull();
+
+  List<AccountActionToken> findByExpiresAtIsNull(Pageable pageable);
+
+  /**
+   * Mark a token used if it is still active, is for the given action and has not expired. Its
+   * expiry is moved to now so the reaper finds it in the expiry range.
+   *
+   * @return 1 if this call consumed the token, 0 if it was already used, expired or for another
+   *     action.
+   */
+  @Modifying
+  @Query("UPDATE AccountActionToken t SET t.active = false, t.expiresAt = :now"
+      + " WHERE t.token = :token"
+      + " AND t.action = :action AND t.active = true AND t.expiresAt > :now")
+  int consume(@Param("token") UUID token,
+              @Param("action") AccountAction action,
+              @Param("now") ZonedDateTime now);
+
+  /**
+   * Page of tokens that expired, or were used, at or before the given time, oldest first.
+   */
+  @Query("SELECT t.token FROM AccountActionToken t WHERE t.expiresAt <= :now"
+      + " ORDER BY t.expiresAt")
+  List<UUID> findReapableTokens(@Param("now") ZonedDateTime now, Pageable pageable);
+
+  /**
+   * Delete the given tokens, rechecking they are still expired or used.
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM AccountActionToken t WHERE t.token IN :tokens AND t.expiresAt <= :now")
+  int deleteReapable(@Param("tokens") Collection<UUID> tokens, @Param("now") ZonedDateTime now);
 }
@@ -0,0 +1,69 @@
+package com.ss.utopia.auth.repository;
+
+import com.ss.utopia.auth.entity.EmailOutboxMessage;
+import com.ss.utopia.auth.entity.EmailOutboxMessage.Status;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+  @Query("SELECT m.id FROM EmailOutboxMessage m"
+      + " WHERE m.status = :status AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt")
+  List<Long> findDueIds(@Param("status") Status status,
+                        @Param("now") ZonedDateTime now,
+                        Pageable pageable);
+
+  /**
+   * Claim due messages for one dispatcher run by tagging them and pushing them past the lease.
+   * Messages another dispatcher claimed in the meantime no longer match and are skipped.
+   *
+   * @return the number of messages claimed.
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE EmailOutboxMessage m SET m.claimToken = :claimToken, m.nextAttemptAt = :leaseUntil"
+      + " WHERE m.id IN :ids AND m.status = :status AND m.nextAttemptAt <= :now")
+  int claim(@Param("ids") Collection<Long> ids,
+            @Param("claimToken") UUID claimToken,
+            @Param("status") Status status,
+            @Param("now") ZonedDateTime now,
+            @Param("leaseUntil") ZonedDateTime leaseUntil);
+
+  List<EmailOutboxMessage> findAllByClaimToken(UUID claimToken);
+
+  /**
+   * Push a claimed message past a new lease, if the claim is still held.
+   *
+   * @return 1 if the claim was renewed, 0 if another dispatcher took the message over.
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE EmailOutboxMessage m SET m.nextAttemptAt = :leaseUntil"
+      + " WHERE m.id = :id AND m.claimToken = :claimToken")
+  int renewClaim(@Param("id") Long id,
+                 @Param("claimToken") UUID claimToken,
+                 @Param("leaseUntil") ZonedDateTime leaseUntil);
+
+  long countByStatus(Status status);
+
+  /**
+   * Clear the tokens of messages in the given status.
+   *
+   * @return the number of messages changed.
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE EmailOutboxMessage m SET m.token = ''"
+      + " WHERE m.status = :status AND m.token <> ''")
+  int clearTokens(@Param("status") Status status);
+}
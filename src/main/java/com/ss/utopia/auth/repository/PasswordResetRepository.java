@@ -1,14 +1,36 @@
 package com.ss.utopia.auth.repository;
 
 import com.ss.utopia.auth.entity.PasswordReset;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface PasswordResetRepository extends JpaRepository<PasswordReset, Long> {
 
   Optional<PasswordReset> findByEmail(String email);
 
-  Optional<PasswordReset> findByToken(String token);
+  Optional<PasswordReset> findByUserId(UUID userId);
+
+  Optional<PasswordReset> findByTokenHash(byte[] tokenHash);
+
+  @Query("SELECT r.id FROM PasswordReset r WHERE r.id > :after AND r.isActive = false"
+      + " ORDER BY r.id")
+  List<Long> findInactiveIds(@Param("after") long after, Pageable pageable);
+
+  /**
+   * Delete the given resets, skipping any that were reactivated by a new request meanwhile.
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM PasswordReset r WHERE r.id IN :ids AND r.isActive = false")
+  int deleteInactive(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,47 @@
+package com.ss.utopia.auth.repository;
+
+import com.ss.utopia.auth.entity.RefreshToken;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+  Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
+
+  /**
+   * Mark a token used if nobody else has yet, keeping it until {@code reuseUntil} so a replay
+   * within that window is still detected.
+   *
+   * @return 1 if this call consumed the token, 0 if it was already used.
+   */
+  @Modifying
+  @Query("UPDATE RefreshToken t SET t.used = true, t.expiresAt = :reuseUntil"
+      + " WHERE t.id = :id AND t.used = false")
+  int markUsed(@Param("id") UUID id, @Param("reuseUntil") ZonedDateTime reuseUntil);
+
+  @Modifying
+  @Query("DELETE FROM RefreshToken t WHERE t.ownerAccountId = :ownerAccountId")
+  int deleteAllByOwnerAccountId(@Param("ownerAccountId") UUID ownerAccountId);
+
+  /**
+   * First page, in expiry order, of tokens that expired or left the reuse detection window.
+   */
+  @Query("SELECT t.id FROM RefreshToken t WHERE t.expiresAt <= :now ORDER BY t.expiresAt")
+  List<UUID> findExpiredIds(@Param("now") ZonedDateTime now, Pageable pageable);
+
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM RefreshToken t WHERE t.id IN :ids AND t.expiresAt <= :now")
+  int deleteExpired(@Param("ids") Collection<UUID> ids, @Param("now") ZonedDateTime now);
+}
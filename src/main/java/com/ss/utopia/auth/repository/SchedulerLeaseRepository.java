@@ -0,0 +1,62 @@
+package com.ss.utopia.auth.repository;
+
+import com.ss.utopia.auth.entity.SchedulerLease;
+import java.time.ZonedDateTime;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+  /**
+   * Take or extend a lease if it is expired or already held by the given owner.
+   *
+   * @return 1 if the owner now holds the lease, 0 if someone else does or it does not exist.
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.leaseUntil = :leaseUntil"
+      + " WHERE l.name = :name AND (l.owner = :owner OR l.leaseUntil <= :now)")
+  int tryAcquire(@Param("name") String name,
+                 @Param("owner") String owner,
+                 @Param("now") ZonedDateTime now,
+                 @Param("leaseUntil") ZonedDateTime leaseUntil);
+
+  /**
+   * Create a lease nobody holds yet, ready to be taken with {@link #tryAcquire}. A plain insert so
+   * that of two instances racing to create it, one fails rather than overwriting the other's.
+   *
+   * @throws org.springframework.dao.DataIntegrityViolationException if the lease already exists.
+   */
+  @Transactional
+  @Modifying
+  @Query(value = "INSERT INTO scheduler_lease (name, owner, lease_until)"
+      + " VALUES (:name, '', :expiredAt)", nativeQuery = true)
+  int create(@Param("name") String name, @Param("expiredAt") ZonedDateTime expiredAt);
+
+  /**
+   * Like {@link #tryAcquire} but creates the lease first if it does not exist yet.
+   *
+   * @return true if the owner now holds the lease.
+   */
+  default boolean acquire(String name, String owner, ZonedDateTime now,
+                          ZonedDateTime leaseUntil) {
+    if (tryAcquire(name, owner, now, leaseUntil) == 1) {
+      return true;
+    }
+    if (existsById(name)) {
+      return false;
+    }
+    try {
+      create(name, now);
+    } catch (DataIntegrityViolationException ex) {
+      // another instance created it first, whoever takes it below wins
+    }
+    return tryAcquire(name, owner, now, leaseUntil) == 1;
+  }
+}
@@ -1,13 +1,64 @@
 package com.ss.utopia.auth.repository;
 
+import com.ss.utopia.auth.dto.UserAccountSummaryDto;
 import com.ss.utopia.auth.entity.UserAccount;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserAccountRepository extends JpaRepository<UserAccount, UUID> {
 
-  Optional<UserAccount> findByEmail(String email);
+  String SELECT_SUMMARY = "SELECT new com.ss.utopia.auth.dto.UserAccountSummaryDto("
+      + "a.id, a.email, a.userRole, a.creationDateTime, a.lastModifiedDateTime,"
+      + " a.enabled, a.accountNonLocked, a.confirmed) FROM UserAccount a";
+
+  Optional<UserAccount> findByNormalizedEmail(String normalizedEmail);
+
+  default Optional<UserAccount> findByEmail(String email) {
+    return findByNormalizedEmail(UserAccount.normalizeEmail(email));
+  }
+
+  boolean existsByNormalizedEmail(String normalizedEmail);
+
+  /**
+   * Keyset page of accounts without a normalized email, ids after the given one.
+   */
+  @Query("SELECT a FROM UserAccount a WHERE a.normalizedEmail IS NULL AND a.id > :after"
+      + " ORDER BY a.id")
+  List<UserAccount> findWithoutNormalizedEmail(@Param("after") UUID after, Pageable pageable);
+
+  @Query(SELECT_SUMMARY + " ORDER BY a.id")
+  List<UserAccountSummaryDto> findSummaries(Pageable pageable);
+
+  /**
+   * Keyset page of account summaries with ids after the given one, so deep pages cost the same as
+   * the first.
+   */
+  @Query(SELECT_SUMMARY + " WHERE a.id > :after ORDER BY a.id")
+  List<UserAccountSummaryDto> findSummariesAfter(@Param("after") UUID after, Pageable pageable);
+
+  @Query(SELECT_SUMMARY + " WHERE a.id IN :ids")
+  List<UserAccountSummaryDto> findSummariesByIdIn(@Param("ids") Collection<UUID> ids);
+
+  @Query(SELECT_SUMMARY + " WHERE a.normalizedEmail IN :normalizedEmails")
+  List<UserAccountSummaryDto> findSummariesByNormalizedEmailIn(
+      @Param("normalizedEmails") Collection<String> normalizedEmails);
+
+  /**
+   * Increment an account's token version if it still has the expected value.
+   *
+   * @return 1 if this call incremented it, 0 if the version had already moved on.
+   */
+  @Modifying
+  @Query("UPDATE UserAccount a SET a.tokenVersion = a.tokenVersion + 1"
+      + " WHERE a.id = :id AND a.tokenVersion = :tokenVersion")
+  int incrementTokenVersion(@Param("id") UUID id, @Param("tokenVersion") int tokenVersion);
 }
@@ -1,6 +1,9 @@
 package com.ss.utopia.auth.security;
 
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.jfr.RepositoryLookupEvent;
 import com.ss.utopia.auth.repository.UserAccountRepository;
+import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -12,17 +15,26 @@ import org.springframework.stereotype.Service;
 public class JpaUserDetailsService implements UserDetailsService {
 
   private final UserAccountRepository userAccountRepository;
+  private final UserDetailsCache userDetailsCache;
 
-  public JpaUserDetailsService(UserAccountRepository userAccountRepository) {
+  public JpaUserDetailsService(UserAccountRepository userAccountRepository,
+                               UserDetailsCache userDetailsCache) {
     this.userAccountRepository = userAccountRepository;
+    this.userDetailsCache = userDetailsCache;
   }
 
   @Override
   public UserDetails loadUserByUsername(String email) {
     log.debug("Load user: email=" + email);
 
-    return userAccountRepository.findByEmail(email)
+    return userDetailsCache.get(UserAccount.normalizeEmail(email), this::findByNormalizedEmail)
         .orElseThrow(() -> new UsernameNotFoundException(
             "User account with email '" + email + "' not found."));
   }
+
+  private Optional<UserAccount> findByNormalizedEmail(String normalizedEmail) {
+    return RepositoryLookupEvent.record(
+        UserAccount.class, "email",
+        () -> userAccountRepository.findByNormalizedEmail(normalizedEmail));
+  }
 }
@@ -0,0 +1,21 @@
+package com.ss.utopia.auth.security;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.List;
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * Public verification keys in JWK Set format (RFC 7517). Shared secrets are never included.
+ */
+@Value
+public class JsonWebKeySet {
+
+  List<Map<String, String>> keys;
+
+  /**
+   * Strong entity tag derived from the published keys; changes whenever a key is added or removed.
+   */
+  @JsonIgnore
+  String etag;
+}
@@ -1,40 +1,58 @@
 package com.ss.utopia.auth.security;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ss.utopia.auth.dto.AuthDto;
 import com.ss.utopia.auth.dto.AuthResponse;
 import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.exception.HashingCapacityExceededException;
+import com.ss.utopia.auth.jfr.LoginEvent;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.service.RefreshTokenService;
 import java.io.IOException;
 import java.util.Collections;
-import java.util.stream.Collectors;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Slf4j
 public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilter {
 
+  private static final String LOGIN_START_ATTRIBUTE =
+      JwtAuthenticationFilter.class.getName() + ".loginStart";
+  private static final String LOGIN_EVENT_ATTRIBUTE =
+      JwtAuthenticationFilter.class.getName() + ".loginEvent";
+
   private final AuthenticationManager authenticationManager;
   private final ObjectMapper objectMapper;
   private final SecurityConstants securityConstants;
+  private final JwtTokenEngine jwtTokenEngine;
+  private final RefreshTokenService refreshTokenService;
+  private final AuthMetrics authMetrics;
 
   public JwtAuthenticationFilter(AuthenticationManager authenticationManager,
                                  ObjectMapper objectMapper,
-                                 SecurityConstants securityConstants) {
+                                 SecurityConstants securityConstants,
+                                 JwtTokenEngine jwtTokenEngine,
+                                 RefreshTokenService refreshTokenService,
+                                 AuthMetrics authMetrics) {
     super(authenticationManager);
     this.authenticationManager = authenticationManager;
     this.objectMapper = objectMapper;
     this.securityConstants = securityConstants;
+    this.jwtTokenEngine = jwtTokenEngine;
+    this.refreshTokenService = refreshTokenService;
+    this.authMetrics = authMetrics;
 
     var authEndpoint = securityConstants.getEndpoint();
     if (authEndpoint == null || authEndpoint.isBlank()) {
@@ -49,12 +67,19 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
   public Authentication attemptAuthentication(HttpServletRequest request,
                                               HttpServletResponse response) {
     log.debug("Attempt Authentication");
+    request.setAttribute(LOGIN_START_ATTRIBUTE, System.nanoTime());
+    var event = new LoginEvent();
+    event.begin();
+    request.setAttribute(LOGIN_EVENT_ATTRIBUTE, event);
     try (var inputStream = request.getInputStream()) {
       var credentials = objectMapper.readValue(inputStream, AuthDto.class);
       var token = new UsernamePasswordAuthenticationToken(credentials.getEmail(),
                                                           credentials.getPassword(),
                                                           Collections.emptySet());
       return authenticationManager.authenticate(token);
+    } catch (HashingCapacityExceededException ex) {
+      // rethrown as an auth exception so the failure is handled by unsuccessfulAuthentication
+      throw new InternalAuthenticationServiceException(ex.getMessage(), ex);
     } catch (IOException ex) {
       // results from poorly formed request body, log and cause failure
       log.debug(ex.getMessage());
@@ -72,31 +97,23 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
 
     var user = (UserAccount) authResult.getPrincipal();
     var id = user.getId();
-    var email = user.getEmail();
-    var authorities = user.getAuthorities()
-        .stream()
-        .map(GrantedAuthority::getAuthority)
-        .collect(Collectors.toList());
-
     var expiresAt = securityConstants.getExpiresAt();
 
-    var jwt = JWT.create()
-        .withSubject(email)
-        .withIssuer(securityConstants.getJwtIssuer())
-        .withClaim(securityConstants.getUserIdClaimKey(), id.toString())
-        .withClaim(securityConstants.getAuthorityClaimKey(), authorities)
-        .withExpiresAt(expiresAt)
-        .sign(Algorithm.HMAC512(securityConstants.getJwtSecret()));
+    var jwt = jwtTokenEngine.createToken(user, expiresAt);
 
     var headerVal = securityConstants.getJwtHeaderPrefix() + jwt;
 
     log.debug("Created JWT: " + jwt);
 
+    var refreshToken = refreshTokenService.createRefreshToken(id);
+
     var respBody = objectMapper
-        .writeValueAsString(new AuthResponse(id, headerVal, expiresAt.getTime()));
+        .writeValueAsString(new AuthResponse(id, headerVal, expiresAt.getTime(), refreshToken));
 
     response.addHeader(securityConstants.getJwtHeaderName(), headerVal);
     response.getWriter().write(respBody);
+    recordLogin(request, true);
+    recordLoginEvent(request, user);
   }
 
   @Override
@@ -104,8 +121,37 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
                                             HttpServletResponse response,
                                             AuthenticationException failed)
       throws IOException, ServletException {
+    recordLogin(request, false);
+    recordLoginEvent(request, null);
+    if (failed.getCause() instanceof HashingCapacityExceededException) {
+      var ex = (HashingCapacityExceededException) failed.getCause();
+      log.warn(ex.getMessage());
+      SecurityContextHolder.clearContext();
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+      response.getWriter().write("{\"error\":\"authentication temporarily unavailable\"}");
+      return;
+    }
     log.debug("Auth failure");
     super.unsuccessfulAuthentication(request, response, failed);
   }
 
+  private void recordLogin(HttpServletRequest request, boolean success) {
+    var start = request.getAttribute(LOGIN_START_ATTRIBUTE);
+    if (start instanceof Long) {
+      authMetrics.recordLogin(success, System.nanoTime() - (Long) start);
+    }
+  }
+
+  private void recordLoginEvent(HttpServletRequest request, UserAccount user) {
+    var event = request.getAttribute(LOGIN_EVENT_ATTRIBUTE);
+    if (event instanceof LoginEvent) {
+      var loginEvent = (LoginEvent) event;
+      var role = user == null || user.getUserRole() == null ? null : user.getUserRole().name();
+      loginEvent.setSuccess(user != null);
+      loginEvent.setRole(role);
+      loginEvent.commit();
+    }
+  }
+
 }
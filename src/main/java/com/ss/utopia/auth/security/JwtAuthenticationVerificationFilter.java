@@ -1,11 +1,9 @@
 package com.ss.utopia.auth.security;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.ss.utopia.auth.metrics.AuthMetrics;
 import java.io.IOException;
-import java.util.UUID;
-import java.util.stream.Collectors;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -13,7 +11,6 @@ import javax.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.stereotype.Component;
@@ -23,11 +20,17 @@ import org.springframework.stereotype.Component;
 public class JwtAuthenticationVerificationFilter extends BasicAuthenticationFilter {
 
   private final SecurityConstants securityConstants;
+  private final VerifiedTokenCache verifiedTokenCache;
+  private final AuthMetrics authMetrics;
 
   public JwtAuthenticationVerificationFilter(AuthenticationManager authenticationManager,
-                                             SecurityConstants securityConstants) {
+                                             SecurityConstants securityConstants,
+                                             VerifiedTokenCache verifiedTokenCache,
+                                             AuthMetrics authMetrics) {
     super(authenticationManager);
     this.securityConstants = securityConstants;
+    this.verifiedTokenCache = verifiedTokenCache;
+    this.authMetrics = authMetrics;
   }
 
   @Override
@@ -43,6 +46,7 @@ public class JwtAuthenticationVerificationFilter extends BasicAuthenticationFilt
       chain.doFilter(request, response);
     } catch (TokenExpiredException ex) {
       log.debug("Expired token");
+      authMetrics.recordExpiredToken();
       response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
       response.getWriter().write("{\"error\":\"token expired\"}");
     }
@@ -54,29 +58,14 @@ public class JwtAuthenticationVerificationFilter extends BasicAuthenticationFilt
       return null;
     }
 
-    var jwt = JWT.require(Algorithm.HMAC512(securityConstants.getJwtSecret()))
-        .build()
-        .verify(token.replace(securityConstants.getJwtHeaderPrefix(), ""));
-
-    var subject = jwt.getSubject();
-
-    if (subject == null) {
-      return null;
+    var rawToken = token.replace(securityConstants.getJwtHeaderPrefix(), "");
+    try {
+      return verifiedTokenCache.getOrVerify(rawToken);
+    } catch (TokenExpiredException ex) {
+      throw ex;
+    } catch (JWTVerificationException ex) {
+      authMetrics.recordInvalidToken();
+      throw ex;
     }
-
-    var authorities = jwt.getClaim(securityConstants.getAuthorityClaimKey())
-        .asList(String.class)
-        .stream()
-        .map(SimpleGrantedAuthority::new)
-        .collect(Collectors.toList());
-
-    var userId = jwt.getClaim(securityConstants.getUserIdClaimKey()).asString();
-
-    var jwtPrincipal = JwtPrincipal.builder()
-        .email(subject)
-        .userId(UUID.fromString(userId))
-        .build();
-
-    return new UsernamePasswordAuthenticationToken(jwtPrincipal, null, authorities);
   }
 }
\ No newline at end of file
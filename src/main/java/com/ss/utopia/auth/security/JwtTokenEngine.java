@@ -0,0 +1,357 @@
+package com.ss.utopia.auth.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.jfr.TokenIssueEvent;
+import com.ss.utopia.auth.jfr.TokenVerifyEvent;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.metrics.ServerTiming;
+import com.ss.utopia.auth.metrics.ServerTiming.Phase;
+import com.ss.utopia.auth.security.SecurityConstants.JwtAlgorithm;
+import com.ss.utopia.auth.security.SecurityConstants.JwtKey;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signs and verifies JWTs with keys configured in {@link SecurityConstants}.
+ *
+ * <p>Signers and verifiers are built once per key configuration rather than per request. The
+ * configuration is compared against the last one built from on every call, so keys rebound at
+ * runtime (ie from a config server refresh) take effect without a restart.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtTokenEngine {
+
+  private final SecurityConstants securityConstants;
+  private final AuthMetrics authMetrics;
+
+  private volatile KeySet keySet;
+  private long keySetGeneration;
+
+  /**
+   * Create a signed token for the given account. The token carries the account id and
+   * authorities as claims and the active key id in its header.
+   */
+  public String createToken(UserAccount user, Date expiresAt) {
+    var event = new TokenIssueEvent();
+    event.begin();
+    var start = System.nanoTime();
+    try {
+      return sign(user, expiresAt, event);
+    } finally {
+      var nanos = System.nanoTime() - start;
+      authMetrics.recordJwtSign(nanos);
+      ServerTiming.record(Phase.JWT, nanos);
+      event.commit();
+    }
+  }
+
+  private String sign(UserAccount user, Date expiresAt, TokenIssueEvent event) {
+    var keys = getKeySet();
+    event.setKeyId(keys.signingKeyId);
+    event.setRole(user.getUserRole() == null ? null : user.getUserRole().name());
+    var authorities = user.getAuthorities()
+        .stream()
+        .map(GrantedAuthority::getAuthority)
+        .collect(Collectors.toList());
+
+    var builder = JWT.create();
+    if (keys.signingKeyId != null) {
+      builder.withKeyId(keys.signingKeyId);
+    }
+    return builder
+        .withSubject(user.getEmail())
+        .withIssuer(securityConstants.getJwtIssuer())
+        .withClaim(securityConstants.getUserIdClaimKey(), user.getId().toString())
+        .withClaim(securityConstants.getAuthorityClaimKey(), authorities)
+        .withExpiresAt(expiresAt)
+        .sign(keys.signer);
+  }
+
+  /**
+   * Verify a token using the key identified by its {@code kid} header.
+   *
+   * @param token the raw token, without header prefix.
+   * @return the verified token.
+   * @throws JWTVerificationException if the token is malformed, expired, signed with an unknown
+   *                                  key or has an invalid signature.
+   */
+  public DecodedJWT verify(String token) {
+    var event = new TokenVerifyEvent();
+    event.begin();
+    var start = System.nanoTime();
+    try {
+      var verified = verifyWithKeyId(token, event);
+      event.setValid(true);
+      return verified;
+    } finally {
+      var nanos = System.nanoTime() - start;
+      authMetrics.recordJwtVerify(nanos);
+      ServerTiming.record(Phase.JWT, nanos);
+      event.commit();
+    }
+  }
+
+  private DecodedJWT verifyWithKeyId(String token, TokenVerifyEvent event) {
+    var decoded = JWT.decode(token);
+    var keys = getKeySet();
+
+    var keyId = decoded.getKeyId();
+    event.setKeyId(keyId);
+    var verifier = keyId == null ? keys.defaultVerifier : keys.verifiers.get(keyId);
+    if (verifier == null) {
+      throw new JWTVerificationException("Unknown signing key id=" + keyId);
+    }
+    return verifier.verify(decoded);
+  }
+
+  /**
+   * Key id new tokens are signed with, or null if signing with the legacy secret.
+   */
+  public String getActiveKeyId() {
+    return getKeySet().signingKeyId;
+  }
+
+  /**
+   * Public keys of all RS256/ES256 keys accepted for verification. Computed once per key
+   * configuration so serving it costs no more than serializing a small list.
+   */
+  public JsonWebKeySet getJsonWebKeySet() {
+    return getKeySet().jsonWebKeySet;
+  }
+
+  /**
+   * Incremented each time the key configuration changes, so results derived from earlier
+   * verifications can be discarded after a rotation.
+   */
+  public long getKeySetGeneration() {
+    return getKeySet().generation;
+  }
+
+  private KeySet getKeySet() {
+    var current = keySet;
+    if (current == null || !current.isBuiltFrom(securityConstants)) {
+      synchronized (this) {
+        current = keySet;
+        if (current == null || !current.isBuiltFrom(securityConstants)) {
+          current = new KeySet(securityConstants, ++keySetGeneration);
+          keySet = current;
+          log.info("Loaded JWT keys: active=" + current.signingKeyId
+                       + " verification=" + current.verifiers.keySet());
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Immutable signers and verifiers built from one snapshot of the key configuration.
+   */
+  private static final class KeySet {
+
+    private final long generation;
+    private final String jwtSecret;
+    private final String activeKeyId;
+    private final List<JwtKey> jwtKeys;
+
+    private final String signingKeyId;
+    private final Algorithm signer;
+    private final Map<String, JWTVerifier> verifiers = new HashMap<>();
+    private final JWTVerifier defaultVerifier;
+    private final JsonWebKeySet jsonWebKeySet;
+
+    private KeySet(SecurityConstants constants, long generation) {
+      this.generation = generation;
+      jwtSecret = constants.getJwtSecret();
+      activeKeyId = constants.getJwtActiveKeyId();
+      jwtKeys = copyOf(constants.getJwtKeys());
+
+      var legacyAlgorithm = jwtSecret == null ? null : Algorithm.HMAC512(jwtSecret);
+      if (jwtKeys.isEmpty()) {
+        if (legacyAlgorithm == null) {
+          throw new IllegalStateException("No JWT secret or keys configured.");
+        }
+        signingKeyId = null;
+        signer = legacyAlgorithm;
+        defaultVerifier = JWT.require(legacyAlgorithm).build();
+        jsonWebKeySet = toJsonWebKeySet(List.of());
+        return;
+      }
+
+      var algorithms = new HashMap<String, Algorithm>();
+      var jsonWebKeys = new ArrayList<Map<String, String>>();
+      for (var key : jwtKeys) {
+        if (key.getId() == null || key.getId().isBlank()) {
+          throw new IllegalStateException("JWT keys must have an id.");
+        }
+        var publicKey = publicKey(key);
+        var algorithm = toAlgorithm(key, publicKey);
+        algorithms.put(key.getId(), algorithm);
+        verifiers.put(key.getId(), JWT.require(algorithm).build());
+        if (publicKey != null) {
+          jsonWebKeys.add(toJsonWebKey(key, publicKey));
+        }
+      }
+      jsonWebKeySet = toJsonWebKeySet(jsonWebKeys);
+
+      signingKeyId = activeKeyId == null ? jwtKeys.get(0).getId() : activeKeyId;
+      var signingKey = jwtKeys.stream()
+          .filter(key -> key.getId().equals(signingKeyId))
+          .findFirst()
+          .orElseThrow(() -> new IllegalStateException(
+              "Active JWT key id=" + signingKeyId + " not configured."));
+      if (signingKey.getSecret() == null && signingKey.getPrivateKey() == null) {
+        throw new IllegalStateException(
+            "Active JWT key id=" + signingKeyId + " has no secret or private key.");
+      }
+      signer = algorithms.get(signingKeyId);
+
+      // tokens without a key id were issued before keys were configured
+      defaultVerifier = legacyAlgorithm == null
+          ? verifiers.get(signingKeyId)
+          : JWT.require(legacyAlgorithm).build();
+    }
+
+    private boolean isBuiltFrom(SecurityConstants constants) {
+      var configuredKeys = constants.getJwtKeys();
+      return Objects.equals(jwtSecret, constants.getJwtSecret())
+          && Objects.equals(activeKeyId, constants.getJwtActiveKeyId())
+          && (configuredKeys == null ? jwtKeys.isEmpty() : jwtKeys.equals(configuredKeys));
+    }
+
+    private static List<JwtKey> copyOf(List<JwtKey> keys) {
+      return keys == null
+          ? List.of()
+          : keys.stream().map(JwtKey::copy).collect(Collectors.toUnmodifiableList());
+    }
+
+    private static Algorithm toAlgorithm(JwtKey key, PublicKey publicKey) {
+      try {
+        switch (key.getAlgorithm()) {
+          case RS256:
+            return Algorithm.RSA256(
+                (RSAPublicKey) publicKey,
+                (RSAPrivateKey) privateKey("RSA", key.getPrivateKey()));
+          case ES256:
+            return Algorithm.ECDSA256(
+                (ECPublicKey) publicKey,
+                (ECPrivateKey) privateKey("EC", key.getPrivateKey()));
+          case HS512:
+          default:
+            return Algorithm.HMAC512(key.getSecret());
+        }
+      } catch (GeneralSecurityException | IllegalArgumentException ex) {
+        throw new IllegalStateException("Invalid JWT key id=" + key.getId(), ex);
+      }
+    }
+
+    private static PublicKey publicKey(JwtKey key) {
+      if (key.getAlgorithm() != JwtAlgorithm.HS512 && key.getPublicKey() == null) {
+        throw new IllegalStateException("JWT key id=" + key.getId() + " has no public key.");
+      }
+      try {
+        switch (key.getAlgorithm()) {
+          case RS256:
+            return publicKey("RSA", key.getPublicKey());
+          case ES256:
+            return publicKey("EC", key.getPublicKey());
+          case HS512:
+          default:
+            return null;
+        }
+      } catch (GeneralSecurityException | IllegalArgumentException ex) {
+        throw new IllegalStateException("Invalid JWT public key id=" + key.getId(), ex);
+      }
+    }
+
+    private static PublicKey publicKey(String type, String encoded)
+        throws GeneralSecurityException {
+      return KeyFactory.getInstance(type).generatePublic(new X509EncodedKeySpec(decode(encoded)));
+    }
+
+    private static PrivateKey privateKey(String type, String encoded)
+        throws GeneralSecurityException {
+      if (encoded == null || encoded.isBlank()) {
+        return null;
+      }
+      return KeyFactory.getInstance(type).generatePrivate(new PKCS8EncodedKeySpec(decode(encoded)));
+    }
+
+    private static byte[] decode(String encoded) {
+      var base64 = encoded.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+      return Base64.getDecoder().decode(base64);
+    }
+
+    private static Map<String, String> toJsonWebKey(JwtKey key, PublicKey publicKey) {
+      var jwk = new LinkedHashMap<String, String>();
+      if (publicKey instanceof RSAPublicKey) {
+        var rsaKey = (RSAPublicKey) publicKey;
+        jwk.put("kty", "RSA");
+        jwk.put("n", base64Url(rsaKey.getModulus(), 0));
+        jwk.put("e", base64Url(rsaKey.getPublicExponent(), 0));
+      } else {
+        // ES256 is only defined over P-256, so coordinates are always 32 bytes
+        var point = ((ECPublicKey) publicKey).getW();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("x", base64Url(point.getAffineX(), 32));
+        jwk.put("y", base64Url(point.getAffineY(), 32));
+      }
+      jwk.put("kid", key.getId());
+      jwk.put("use", "sig");
+      jwk.put("alg", key.getAlgorithm().name());
+      return Collections.unmodifiableMap(jwk);
+    }
+
+    /**
+     * Unsigned big-endian base64url encoding, left padded with zeros to {@code length} bytes.
+     */
+    private static String base64Url(BigInteger value, int length) {
+      var bytes = value.toByteArray();
+      if (bytes.length > 1 && bytes[0] == 0) {
+        bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+      }
+      if (bytes.length < length) {
+        var padded = new byte[length];
+        System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+        bytes = padded;
+      }
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static JsonWebKeySet toJsonWebKeySet(List<Map<String, String>> keys) {
+      var etag = "\"" + TokenDigests.sha256Base64Url(keys.toString()) + "\"";
+      return new JsonWebKeySet(List.copyOf(keys), etag);
+    }
+  }
+}
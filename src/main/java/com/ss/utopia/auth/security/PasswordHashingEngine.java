@@ -0,0 +1,161 @@
+package com.ss.utopia.auth.security;
+
+import com.ss.utopia.auth.exception.HashingCapacityExceededException;
+import com.ss.utopia.auth.jfr.PasswordMatchEvent;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.metrics.ServerTiming;
+import com.ss.utopia.auth.metrics.ServerTiming.Phase;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link PasswordEncoder} that runs BCrypt hashing on a fixed-size pool with a bounded queue.
+ *
+ * <p>Request threads block while their hash is computed but no more than {@code threads} hashes
+ * ever run at once, keeping crypto CPU per node capped regardless of the servlet thread count.
+ * When the queue is full a {@link HashingCapacityExceededException} is thrown so the caller can
+ * answer with a 503 and a {@code Retry-After} header instead of piling up more work.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConfigurationProperties(value = "com.ss.utopia.hashing", ignoreUnknownFields = false)
+public class PasswordHashingEngine implements PasswordEncoder {
+
+  private final AuthMetrics authMetrics;
+
+  @Getter
+  @Setter
+  private int threads = Runtime.getRuntime().availableProcessors();
+  @Getter
+  @Setter
+  private int queueCapacity = 64;
+  @Getter
+  @Setter
+  private int strength = 10;
+  @Getter
+  @Setter
+  private long retryAfterSeconds = 1;
+
+  private BCryptPasswordEncoder delegate;
+  private ThreadPoolExecutor executor;
+
+  @PostConstruct
+  public void postConstruct() {
+    delegate = new BCryptPasswordEncoder(strength);
+
+    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                      new ArrayBlockingQueue<>(queueCapacity),
+                                      hashingThreadFactory(),
+                                      new ThreadPoolExecutor.AbortPolicy());
+    authMetrics.monitorExecutor(executor, "password.hashing");
+    log.info("Password hashing pool started: threads=" + threads
+                 + " queueCapacity=" + queueCapacity + " strength=" + strength);
+  }
+
+  @PreDestroy
+  public void preDestroy() {
+    executor.shutdown();
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return submit(() -> delegate.encode(rawPassword), authMetrics::recordBcryptEncode);
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    var event = new PasswordMatchEvent();
+    event.begin();
+    var matched = submit(() -> delegate.matches(rawPassword, encodedPassword),
+                         authMetrics::recordBcryptMatches);
+    event.setMatched(matched);
+    event.commit();
+    return matched;
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  /**
+   * Number of hashes waiting for a free hashing thread.
+   */
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  <T> T submit(Callable<T> hashTask) {
+    return submit(hashTask, nanos -> {
+    });
+  }
+
+  private <T> T submit(Callable<T> hashTask, LongConsumer hashTimeRecorder) {
+    var start = System.nanoTime();
+    try {
+      return submitAndWait(hashTask, hashTimeRecorder);
+    } finally {
+      ServerTiming.record(Phase.BCRYPT, System.nanoTime() - start);
+    }
+  }
+
+  private <T> T submitAndWait(Callable<T> hashTask, LongConsumer hashTimeRecorder) {
+    Future<T> future;
+    try {
+      future = executor.submit(() -> timed(hashTask, hashTimeRecorder));
+    } catch (RejectedExecutionException ex) {
+      log.warn("Password hashing queue full, rejecting. queueDepth=" + getQueueDepth());
+      throw new HashingCapacityExceededException(retryAfterSeconds);
+    }
+
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for password hash.", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+
+  private static ThreadFactory hashingThreadFactory() {
+    var threadCount = new AtomicInteger();
+    return runnable -> {
+      var thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private <T> T timed(Callable<T> hashTask, LongConsumer hashTimeRecorder) throws Exception {
+    var start = System.nanoTime();
+    try {
+      return hashTask.call();
+    } finally {
+      hashTimeRecorder.accept(System.nanoTime() - start);
+    }
+  }
+}
@@ -2,6 +2,9 @@ package com.ss.utopia.auth.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ss.utopia.auth.controller.EndpointConstants;
+import com.ss.utopia.auth.entity.UserRole;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.service.RefreshTokenService;
 import java.util.Arrays;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +29,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
   private final Environment environment;
   private final SecurityConstants securityConstants;
+  private final JwtTokenEngine jwtTokenEngine;
+  private final VerifiedTokenCache verifiedTokenCache;
+  private final RefreshTokenService refreshTokenService;
+  private final AuthMetrics authMetrics;
 
   @Override
   protected void configure(HttpSecurity http) throws Exception {
@@ -53,16 +60,27 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         .permitAll()
         .antMatchers(HttpMethod.POST, authEndpoint)
         .permitAll()
+        .antMatchers(HttpMethod.POST, authEndpoint + "/refresh")
+        .permitAll()
         .antMatchers(HttpMethod.POST, EndpointConstants.API_V_0_1_ACCOUNTS)
         .permitAll()
         .antMatchers(HttpMethod.PUT, EndpointConstants.API_V_0_1_ACCOUNTS + "/confirm/**")
         .permitAll()
+        .antMatchers(HttpMethod.POST, EndpointConstants.API_V_0_1_ACCOUNTS + "/confirm/resend")
+        .permitAll()
         .antMatchers(HttpMethod.POST, EndpointConstants.API_V_0_1_ACCOUNTS + "/password-reset")
         .permitAll()
         .antMatchers(HttpMethod.POST, EndpointConstants.API_V_0_1_ACCOUNTS + "/new-password")
         .permitAll()
         .antMatchers(HttpMethod.GET, EndpointConstants.API_V_0_1_ACCOUNTS + "/new-password/{token}")
         .permitAll()
+        .antMatchers(HttpMethod.GET, EndpointConstants.JWKS)
+        .permitAll()
+        .antMatchers(HttpMethod.GET, "/actuator/health")
+        .permitAll()
+        // latency, failure counts and pool internals are for the platform's scraper only
+        .antMatchers(HttpMethod.GET, "/actuator/prometheus")
+        .hasRole(UserRole.SERVICE.getRoleName())
         .antMatchers(HttpMethod.GET, "/api-docs")
         .permitAll()
         .antMatchers(HttpMethod.GET, "/swagger-ui.html")
@@ -73,9 +91,12 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         .authenticated()
         .and()
         .addFilter(new JwtAuthenticationFilter(authenticationManager(),
-                                               new ObjectMapper(), securityConstants))
+                                               new ObjectMapper(), securityConstants,
+                                               jwtTokenEngine, refreshTokenService,
+                                               authMetrics))
         .addFilter(new JwtAuthenticationVerificationFilter(authenticationManager(),
-                                                           securityConstants))
+                                                           securityConstants, verifiedTokenCache,
+                                                           authMetrics))
         .sessionManagement()
         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
     ;
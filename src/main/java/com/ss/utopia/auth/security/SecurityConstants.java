@@ -1,8 +1,13 @@
 package com.ss.utopia.auth.security;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
@@ -19,15 +24,78 @@ public class SecurityConstants {
   private String jwtHeaderPrefix;
   private String jwtIssuer;
   private long jwtExpirationDuration;
+  /** Lifetime of refresh tokens in milliseconds, 14 days by default. */
+  private long refreshTokenExpirationDuration = 1_209_600_000L;
+  /**
+   * Milliseconds a used refresh token is kept so replaying it revokes the owner's tokens, 1 day by
+   * default. After that the row is deleted and a replay is rejected as an unknown token.
+   */
+  private long refreshTokenReuseDetectionWindow = 86_400_000L;
   private String authorityClaimKey;
   private String userIdClaimKey;
 
+  /**
+   * Key id ({@code kid}) of the entry in {@link #jwtKeys} used to sign new tokens. Defaults to the
+   * first configured key.
+   */
+  private String jwtActiveKeyId;
+
+  /**
+   * Signing and verification keys. Every key listed here is accepted for verification so keys can
+   * be rotated by adding the new key, switching {@link #jwtActiveKeyId} and later removing the old
+   * one. When empty, tokens are signed with {@link #jwtSecret} using HS512 and no key id.
+   */
+  private List<JwtKey> jwtKeys = new ArrayList<>();
+
+  /**
+   * Seconds clients may cache the published JWK set. Keep this below the gap between publishing a
+   * new key and signing with it so verifiers have fetched the key before they first see it.
+   */
+  private long jwksMaxAgeSeconds = 3600;
+
   public void setJwtExpirationDuration(String jwtExpirationDuration) {
     this.jwtExpirationDuration = Long.parseLong(jwtExpirationDuration.replaceAll("_", ""));
   }
 
+  public void setRefreshTokenExpirationDuration(String refreshTokenExpirationDuration) {
+    this.refreshTokenExpirationDuration =
+        Long.parseLong(refreshTokenExpirationDuration.replaceAll("_", ""));
+  }
+
+  public void setRefreshTokenReuseDetectionWindow(String refreshTokenReuseDetectionWindow) {
+    this.refreshTokenReuseDetectionWindow =
+        Long.parseLong(refreshTokenReuseDetectionWindow.replaceAll("_", ""));
+  }
+
   public Date getExpiresAt() {
     return new Date(System.currentTimeMillis() + jwtExpirationDuration);
   }
 
+  public enum JwtAlgorithm {
+    HS512,
+    RS256,
+    ES256
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class JwtKey {
+
+    private String id;
+    private JwtAlgorithm algorithm = JwtAlgorithm.HS512;
+    /** Shared secret for HS512 keys. */
+    @ToString.Exclude
+    private String secret;
+    /** Base64 (or PEM) X.509 encoded public key for RS256/ES256 keys. */
+    private String publicKey;
+    /** Base64 (or PEM) PKCS#8 encoded private key, omit for verification-only keys. */
+    @ToString.Exclude
+    private String privateKey;
+
+    JwtKey copy() {
+      return new JwtKey(id, algorithm, secret, publicKey, privateKey);
+    }
+  }
+
 }
@@ -0,0 +1,31 @@
+package com.ss.utopia.auth.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Digests used to store or index tokens without keeping the raw token around.
+ */
+public final class TokenDigests {
+
+  private TokenDigests() {
+  }
+
+  public static byte[] sha256(String token) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException ex) {
+      // every JVM is required to support SHA-256
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Unpadded base64url SHA-256 of the token, suitable as a map key or header value.
+   */
+  public static String sha256Base64Url(String token) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(token));
+  }
+}
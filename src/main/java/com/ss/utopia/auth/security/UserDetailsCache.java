@@ -0,0 +1,117 @@
+package com.ss.utopia.auth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded cache of the fields needed to authenticate an account, keyed by normalized email.
+ *
+ * <p>Only detached copies holding id, email, password hash, role and status flags are kept, never
+ * the managed entity. Anything that changes those fields must call {@link #evict(String)} with
+ * every email the account had before and after the change; entries also expire after
+ * {@code expireAfterWriteSeconds} as a backstop.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConfigurationProperties(value = "com.ss.utopia.user-details-cache", ignoreUnknownFields = false)
+public class UserDetailsCache {
+
+  private final AuthMetrics authMetrics;
+
+  @Getter
+  @Setter
+  private long maximumSize = 10_000;
+  @Getter
+  @Setter
+  private long expireAfterWriteSeconds = 300;
+
+  private Cache<String, UserAccount> byEmail;
+
+  @PostConstruct
+  public void postConstruct() {
+    byEmail = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+        .recordStats()
+        .build();
+    authMetrics.monitorCache(byEmail, "userDetails");
+  }
+
+  /**
+   * Return a copy of the cached account for the email, loading it on a miss. Missing accounts are
+   * not cached.
+   */
+  public Optional<UserAccount> get(String email,
+                                   Function<String, Optional<UserAccount>> loader) {
+    var cached = byEmail.get(email, key -> loader.apply(key)
+        .map(UserDetailsCache::authenticationFieldsOf)
+        .orElse(null));
+    if (cached == null) {
+      return Optional.empty();
+    }
+    return Optional.of(authenticationFieldsOf(cached));
+  }
+
+  /**
+   * Drop the entry for an email, in any spelling. Inside a transaction this happens after commit,
+   * so a login racing the change cannot reload and cache the old row.
+   */
+  public void evict(String email) {
+    if (email == null) {
+      return;
+    }
+    var key = UserAccount.normalizeEmail(email);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          invalidate(key);
+        }
+      });
+    } else {
+      invalidate(key);
+    }
+  }
+
+  private void invalidate(String normalizedEmail) {
+    log.debug("Evict cached user details email=" + normalizedEmail);
+    byEmail.invalidate(normalizedEmail);
+  }
+
+  public long getHitCount() {
+    return byEmail.stats().hitCount();
+  }
+
+  public long getMissCount() {
+    return byEmail.stats().missCount();
+  }
+
+  private static UserAccount authenticationFieldsOf(UserAccount account) {
+    return UserAccount.builder()
+        .id(account.getId())
+        .email(account.getEmail())
+        .password(account.getPassword())
+        .userRole(account.getUserRole())
+        .accountNonExpired(account.isAccountNonExpired())
+        .accountNonLocked(account.isAccountNonLocked())
+        .credentialsNonExpired(account.isCredentialsNonExpired())
+        .enabled(account.isEnabled())
+        .confirmed(account.isConfirmed())
+        .build();
+  }
+}
@@ -0,0 +1,179 @@
+package com.ss.utopia.auth.security;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded cache of verified bearer tokens and the principal and authorities read from them.
+ *
+ * <p>Entries are keyed by a SHA-256 digest of the raw token, so the cache never holds tokens
+ * themselves, and each entry expires at its token's {@code exp} claim. Entries verified under a
+ * previous key configuration are treated as misses, so rotating a key out takes effect
+ * immediately. Only successful verifications are cached. Each call builds a fresh
+ * authentication from the cached immutable state, so nothing a request does to its
+ * {@code SecurityContext} leaks into other requests.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConfigurationProperties(value = "com.ss.utopia.token-cache", ignoreUnknownFields = false)
+public class VerifiedTokenCache {
+
+  private final JwtTokenEngine jwtTokenEngine;
+  private final SecurityConstants securityConstants;
+  private final AuthMetrics authMetrics;
+
+  @Getter
+  @Setter
+  private long maximumSize = 10_000;
+
+  private Cache<String, VerifiedToken> cache;
+
+  @PostConstruct
+  public void postConstruct() {
+    cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new ExpiresAtTokenExpiry())
+        .recordStats()
+        .build();
+    authMetrics.monitorCache(cache, "verifiedTokens");
+  }
+
+  /**
+   * Return the authentication for a raw token (without header prefix), verifying and caching it
+   * on a miss.
+   *
+   * @return the authentication, or null if the token has no subject.
+   * @throws JWTVerificationException if the token is not valid.
+   */
+  public UsernamePasswordAuthenticationToken getOrVerify(String token) {
+    var verified = getOrVerifyToken(token);
+    return verified == null ? null : verified.getAuthentication();
+  }
+
+  /**
+   * Like {@link #getOrVerify(String)}, also returning when the token expires.
+   *
+   * @return the verified token, or null if the token has no subject.
+   * @throws JWTVerificationException if the token is not valid.
+   */
+  public VerifiedToken getOrVerifyToken(String token) {
+    var key = TokenDigests.sha256Base64Url(token);
+    var generation = jwtTokenEngine.getKeySetGeneration();
+
+    var cached = cache.getIfPresent(key);
+    if (cached != null && cached.generation == generation
+        && cached.expiresAtMillis > System.currentTimeMillis()) {
+      return cached;
+    }
+
+    var jwt = jwtTokenEngine.verify(token);
+    if (jwt.getSubject() == null) {
+      return null;
+    }
+
+    List<GrantedAuthority> authorities = jwt.getClaim(securityConstants.getAuthorityClaimKey())
+        .asList(String.class)
+        .stream()
+        .map(SimpleGrantedAuthority::new)
+        .collect(Collectors.toUnmodifiableList());
+
+    var userId = jwt.getClaim(securityConstants.getUserIdClaimKey()).asString();
+
+    var jwtPrincipal = JwtPrincipal.builder()
+        .email(jwt.getSubject())
+        .userId(UUID.fromString(userId))
+        .build();
+
+    if (jwt.getExpiresAt() == null) {
+      return new VerifiedToken(jwtPrincipal, authorities, Long.MAX_VALUE, generation);
+    }
+    var verified = new VerifiedToken(jwtPrincipal, authorities, jwt.getExpiresAt().getTime(),
+                                     generation);
+    cache.put(key, verified);
+    return verified;
+  }
+
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  public long getSize() {
+    return cache.estimatedSize();
+  }
+
+  /**
+   * Principal and authorities read from a verified token and the time it expires,
+   * {@link Long#MAX_VALUE} if it has no {@code exp} claim.
+   */
+  public static final class VerifiedToken {
+
+    private final JwtPrincipal principal;
+    private final List<GrantedAuthority> authorities;
+    private final long expiresAtMillis;
+    private final long generation;
+
+    private VerifiedToken(JwtPrincipal principal,
+                          List<GrantedAuthority> authorities,
+                          long expiresAtMillis,
+                          long generation) {
+      this.principal = principal;
+      this.authorities = authorities;
+      this.expiresAtMillis = expiresAtMillis;
+      this.generation = generation;
+    }
+
+    /**
+     * A new authentication for this token. Never shared between callers.
+     */
+    public UsernamePasswordAuthenticationToken getAuthentication() {
+      return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+    }
+
+    public long getExpiresAtMillis() {
+      return expiresAtMillis;
+    }
+  }
+
+  private static final class ExpiresAtTokenExpiry implements Expiry<String, VerifiedToken> {
+
+    @Override
+    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+      var remainingMillis = value.expiresAtMillis - System.currentTimeMillis();
+      return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime,
+                                  long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, VerifiedToken value, long currentTime,
+                                long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
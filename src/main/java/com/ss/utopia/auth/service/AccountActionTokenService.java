@@ -2,21 +2,38 @@ package com.ss.utopia.auth.service;
 
 import com.ss.utopia.auth.entity.AccountAction;
 import com.ss.utopia.auth.entity.AccountActionToken;
+import com.ss.utopia.auth.entity.UserAccount;
 import java.util.UUID;
 
 public interface AccountActionTokenService {
 
   AccountActionToken getToken(UUID token);
 
-  default AccountActionToken getAndValidateToken(UUID token) {
-    var retrieved = getToken(token);
-    validateToken(retrieved);
-    return retrieved;
-  }
-
-  void validateToken(AccountActionToken token);
-
-  AccountActionToken createToken(UUID ownerId, AccountAction action);
+  /**
+   * Issue a token the owner can use once for the given action.
+   *
+   * @return the token to send to the owner, either a stored token id or a signed token.
+   */
+  String createToken(UserAccount owner, AccountAction action);
+
+  /**
+   * Like {@link #createToken(UserAccount, AccountAction)} but may hand out a still valid token
+   * issued earlier, ie when an email is sent again.
+   */
+  String getOrCreateToken(UserAccount owner, AccountAction action);
+
+  /**
+   * Atomically mark a valid token of the given action as used. Of any number of concurrent or
+   * repeated calls for the same token, exactly one succeeds.
+   *
+   * @param token  the token to consume.
+   * @param action the action the token must have been issued for.
+   * @return the id of the account that owns the token.
+   * @throws com.ss.utopia.auth.exception.NoSuchAccountActionToken if the token does not exist.
+   * @throws com.ss.utopia.auth.exception.InvalidTokenException    if the token is expired, already
+   *                                                               used or for another action.
+   */
+  UUID consumeToken(String token, AccountAction action);
 
   void deleteToken(AccountActionToken token);
 
@@ -2,53 +2,127 @@ package com.ss.utopia.auth.service;
 
 import com.ss.utopia.auth.entity.AccountAction;
 import com.ss.utopia.auth.entity.AccountActionToken;
+import com.ss.utopia.auth.entity.UserAccount;
 import com.ss.utopia.auth.exception.InvalidTokenException;
 import com.ss.utopia.auth.exception.NoSuchAccountActionToken;
+import com.ss.utopia.auth.jfr.ActionTokenValidationEvent;
+import com.ss.utopia.auth.jfr.RepositoryLookupEvent;
 import com.ss.utopia.auth.repository.AccountActionTokenRepository;
+import com.ss.utopia.auth.repository.UserAccountRepository;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.UUID;
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Issues and consumes single use tokens for account actions.
+ *
+ * <p>By default every token is an {@link AccountActionToken} row. With {@code stateless} enabled,
+ * new tokens are instead an HMAC-SHA256 signed owner id, expiry and owner token version that are
+ * verified in memory. Consuming one increments the owner's token version with a conditional
+ * update, so it works once and also invalidates any other outstanding token of that account. Both
+ * kinds are accepted whatever the setting, so links already sent keep working after a switch.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ConfigurationProperties(value = "com.ss.utopia.action-token", ignoreUnknownFields = false)
 public class AccountActionTokenServiceImpl implements AccountActionTokenService {
 
+  private static final String HMAC_ALGORITHM = "HmacSHA256";
+  // owner id, expiry in epoch seconds, owner token version
+  private static final int SIGNED_PAYLOAD_LENGTH = 16 + 8 + 4;
+  private static final int MAC_LENGTH = 32;
+
   private final AccountActionTokenRepository accountActionTokenRepository;
+  private final UserAccountRepository userAccountRepository;
+
+  @Getter
+  @Setter
+  private boolean stateless = false;
+  @Setter
+  private String secret;
+
+  private SecretKeySpec hmacKey;
+
+  @PostConstruct
+  public void postConstruct() {
+    if (secret != null && !secret.isBlank()) {
+      hmacKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    } else if (stateless) {
+      throw new IllegalStateException(
+          "com.ss.utopia.action-token.secret is required for stateless action tokens.");
+    }
+  }
 
   @Override
   public AccountActionToken getToken(UUID token) {
     log.debug("Get token=" + token);
-    return accountActionTokenRepository.findById(token)
-        .orElseThrow(() -> new NoSuchAccountActionToken(token));
+    var lookup = RepositoryLookupEvent.record(
+        AccountActionToken.class, "token", () -> accountActionTokenRepository.findById(token));
+    return lookup.orElseThrow(() -> new NoSuchAccountActionToken(token));
   }
 
-  /**
-   * Validates that a token is neither inactive nor expired.
-   *
-   * @param token a token to validate.
-   * @throws InvalidTokenException if the given token is expired or inactive.
-   */
   @Override
-  public void validateToken(AccountActionToken token) {
-    var now = ZonedDateTime.now();
-    var creation = token.getCreation();
-    var expiration = creation.plusMinutes(token.getAction().getMinutesToLive());
-
-    if (!token.isActive() || now.isAfter(expiration)) {
-      throw new InvalidTokenException(token);
-    }
+  @Transactional
+  public UUID consumeToken(String token, AccountAction action) {
+    log.debug("Consume " + action + " token");
+    var storedToken = parseStoredToken(token);
+    return storedToken != null
+        ? consumeStoredToken(storedToken, action)
+        : consumeSignedToken(token, action);
   }
 
   @Override
-  public AccountActionToken createToken(UUID ownerId, AccountAction action) {
-    log.debug("Create token, owner=" + ownerId + " action=" + action);
+  public String createToken(UserAccount owner, AccountAction action) {
+    log.debug("Create token, owner=" + owner.getId() + " action=" + action);
+    if (stateless) {
+      var expiresAt = Instant.now().plus(action.getMinutesToLive(), ChronoUnit.MINUTES);
+      return sign(owner.getId(), action, expiresAt.getEpochSecond(), owner.getTokenVersion());
+    }
     return accountActionTokenRepository.save(AccountActionToken.builder()
-                                                 .ownerAccountId(ownerId)
+                                                 .ownerAccountId(owner.getId())
                                                  .action(action)
-                                                 .build());
+                                                 .expiresAt(ZonedDateTime.now().plusMinutes(
+                                                     action.getMinutesToLive()))
+                                                 .build())
+        .getToken()
+        .toString();
+  }
+
+  /**
+   * Reuses a stored token with at least half of its time to live left, so resending an email
+   * does not mint another row. Signed tokens cost nothing to issue and are always new.
+   */
+  @Override
+  public String getOrCreateToken(UserAccount owner, AccountAction action) {
+    if (!stateless) {
+      var validAt = ZonedDateTime.now().plusSeconds(action.getMinutesToLive() * 30L);
+      var existing = accountActionTokenRepository.findActiveTokens(
+          owner.getId(), action, validAt, PageRequest.of(0, 1));
+      if (!existing.isEmpty()) {
+        log.debug("Reuse token, owner=" + owner.getId() + " action=" + action);
+        return existing.get(0).getToken().toString();
+      }
+    }
+    return createToken(owner, action);
   }
 
   @Override
@@ -62,4 +136,110 @@ public class AccountActionTokenServiceImpl implements AccountActionTokenService
     accountActionTokenRepository.findById(tokenId)
         .ifPresent(accountActionTokenRepository::delete);
   }
+
+  private UUID consumeStoredToken(UUID token, AccountAction action) {
+    var event = new ActionTokenValidationEvent();
+    event.begin();
+    // expiry is checked by the database in the same statement that marks the token used
+    var consumed = accountActionTokenRepository.consume(token, action, ZonedDateTime.now()) == 1;
+    event.setAction(action.name());
+    event.setValid(consumed);
+    event.commit();
+
+    var ownerId = accountActionTokenRepository.findOwnerAccountIdByToken(token)
+        .orElseThrow(() -> new NoSuchAccountActionToken(token));
+    if (!consumed) {
+      throw new InvalidTokenException(token);
+    }
+    return ownerId;
+  }
+
+  private UUID consumeSignedToken(String token, AccountAction action) {
+    var buffer = ByteBuffer.wrap(verifySignature(token, action));
+    var ownerId = new UUID(buffer.getLong(), buffer.getLong());
+    var expiresAt = buffer.getLong();
+    var tokenVersion = buffer.getInt();
+
+    var event = new ActionTokenValidationEvent();
+    event.begin();
+    // bumping the version makes this token, and any other outstanding one, unusable
+    var consumed = Instant.now().getEpochSecond() <= expiresAt
+        && userAccountRepository.incrementTokenVersion(ownerId, tokenVersion) == 1;
+    event.setAction(action.name());
+    event.setValid(consumed);
+    event.commit();
+    if (!consumed) {
+      throw new InvalidTokenException(action, ownerId);
+    }
+    return ownerId;
+  }
+
+  /**
+   * Tokens stored as rows are plain UUIDs, anything else is a signed token.
+   */
+  private static UUID parseStoredToken(String token) {
+    if (token == null || token.length() != 36) {
+      return null;
+    }
+    try {
+      return UUID.fromString(token);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  private String sign(UUID ownerId, AccountAction action, long expiresAt, int tokenVersion) {
+    var payload = ByteBuffer.allocate(SIGNED_PAYLOAD_LENGTH)
+        .putLong(ownerId.getMostSignificantBits())
+        .putLong(ownerId.getLeastSignificantBits())
+        .putLong(expiresAt)
+        .putInt(tokenVersion)
+        .array();
+    var token = ByteBuffer.allocate(SIGNED_PAYLOAD_LENGTH + MAC_LENGTH)
+        .put(payload)
+        .put(mac(action, payload))
+        .array();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+  }
+
+  /**
+   * Check a signed token was issued by us for the given action.
+   *
+   * @return the signed payload.
+   * @throws NoSuchAccountActionToken if the token is malformed or its signature does not match.
+   */
+  private byte[] verifySignature(String token, AccountAction action) {
+    byte[] decoded;
+    try {
+      decoded = Base64.getUrlDecoder().decode(token);
+    } catch (IllegalArgumentException ex) {
+      throw new NoSuchAccountActionToken(token);
+    }
+    if (hmacKey == null || decoded.length != SIGNED_PAYLOAD_LENGTH + MAC_LENGTH) {
+      throw new NoSuchAccountActionToken(token);
+    }
+
+    var payload = Arrays.copyOfRange(decoded, 0, SIGNED_PAYLOAD_LENGTH);
+    var signature = Arrays.copyOfRange(decoded, SIGNED_PAYLOAD_LENGTH, decoded.length);
+    if (!MessageDigest.isEqual(mac(action, payload), signature)) {
+      throw new NoSuchAccountActionToken(token);
+    }
+    return payload;
+  }
+
+  /**
+   * The action is part of the signed input rather than the payload, so a token for one action
+   * never verifies as another.
+   */
+  private byte[] mac(AccountAction action, byte[] payload) {
+    try {
+      var mac = Mac.getInstance(HMAC_ALGORITHM);
+      mac.init(hmacKey);
+      mac.update(action.name().getBytes(StandardCharsets.UTF_8));
+      return mac.doFinal(payload);
+    } catch (GeneralSecurityException ex) {
+      // every JVM is required to support HmacSHA256
+      throw new IllegalStateException(ex);
+    }
+  }
 }
@@ -0,0 +1,148 @@
+package com.ss.utopia.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ss.utopia.auth.dto.ResetPasswordDto;
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.exception.NoSuchUserAccountException;
+import com.ss.utopia.auth.exception.PasswordResetCapacityExceededException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Accepts password reset requests and processes them in the background, so the endpoint answers
+ * the same way, and as fast, whether or not the email belongs to an account.
+ *
+ * <p>Requests run on a fixed-size pool with a bounded queue. When the queue is full a
+ * {@link PasswordResetCapacityExceededException} is thrown rather than queueing more work. Requests
+ * for an email already accepted within {@code dedupeWindowSeconds} are dropped, so repeated
+ * submissions cause neither more emails nor more writes. A request that fails is forgotten again so
+ * it can be retried right away.
+ *
+ * <p>Accepted requests live only in memory. On shutdown the queue gets a few seconds to drain and
+ * whatever is left is dropped and logged.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConfigurationProperties(value = "com.ss.utopia.password-reset", ignoreUnknownFields = false)
+public class PasswordResetRequestQueue {
+
+  private final PasswordResetService passwordResetService;
+
+  @Getter
+  @Setter
+  private int threads = 2;
+  @Getter
+  @Setter
+  private int queueCapacity = 256;
+  @Getter
+  @Setter
+  private long dedupeWindowSeconds = 60;
+  @Getter
+  @Setter
+  private long maxTrackedEmails = 100_000;
+  @Getter
+  @Setter
+  private long retryAfterSeconds = 5;
+
+  private Cache<String, Boolean> recentEmails;
+  private ThreadPoolExecutor executor;
+
+  @PostConstruct
+  public void postConstruct() {
+    recentEmails = Caffeine.newBuilder()
+        .expireAfterWrite(dedupeWindowSeconds, TimeUnit.SECONDS)
+        .maximumSize(maxTrackedEmails)
+        .build();
+
+    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                      new ArrayBlockingQueue<>(queueCapacity),
+                                      passwordResetThreadFactory(),
+                                      new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @PreDestroy
+  public void preDestroy() throws InterruptedException {
+    shutdown(5_000);
+  }
+
+  /**
+   * Stop accepting requests and wait for queued ones, dropping those still waiting afterwards.
+   *
+   * @return the number of accepted requests dropped without being processed.
+   */
+  int shutdown(long awaitMillis) throws InterruptedException {
+    executor.shutdown();
+    if (executor.awaitTermination(awaitMillis, TimeUnit.MILLISECONDS)) {
+      return 0;
+    }
+    var inFlight = executor.getActiveCount();
+    var dropped = executor.shutdownNow().size();
+    log.warn("Password reset queue did not drain on shutdown, dropped " + dropped
+                 + " accepted request(s) and interrupted " + inFlight + " in flight.");
+    return dropped;
+  }
+
+  /**
+   * Queue a password reset unless one was accepted for the same email within the dedupe window.
+   *
+   * @throws PasswordResetCapacityExceededException if the queue is full.
+   */
+  public void submit(ResetPasswordDto resetPasswordDto) {
+    var email = UserAccount.normalizeEmail(resetPasswordDto.getEmail());
+    if (email == null || email.isBlank()) {
+      return;
+    }
+    if (recentEmails.asMap().putIfAbsent(email, Boolean.TRUE) != null) {
+      log.debug("Password reset already requested recently, ignoring.");
+      return;
+    }
+
+    try {
+      executor.execute(() -> process(email, resetPasswordDto));
+    } catch (RejectedExecutionException ex) {
+      // not processed, so a retry must not be deduplicated against it
+      recentEmails.invalidate(email);
+      log.warn("Password reset queue full, rejecting. queueDepth=" + getQueueDepth());
+      throw new PasswordResetCapacityExceededException(retryAfterSeconds);
+    }
+  }
+
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  private static ThreadFactory passwordResetThreadFactory() {
+    var threadCount = new AtomicInteger();
+    return runnable -> {
+      var thread = new Thread(runnable, "password-reset-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private void process(String email, ResetPasswordDto resetPasswordDto) {
+    try {
+      passwordResetService.addPasswordReset(resetPasswordDto);
+    } catch (NoSuchUserAccountException ex) {
+      log.debug("Password reset requested for unknown account.");
+    } catch (RuntimeException ex) {
+      // nothing was sent, so a retry must not be deduplicated against it
+      recentEmails.invalidate(email);
+      log.error("Password reset failed: " + ex.getMessage(), ex);
+    }
+  }
+}
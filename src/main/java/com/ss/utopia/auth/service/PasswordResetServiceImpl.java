@@ -5,12 +5,16 @@ import com.ss.utopia.auth.dto.NewPasswordDto;
 import com.ss.utopia.auth.dto.ResetPasswordDto;
 import com.ss.utopia.auth.entity.PasswordReset;
 import com.ss.utopia.auth.exception.InvalidTokenException;
+import com.ss.utopia.auth.jfr.RepositoryLookupEvent;
+import com.ss.utopia.auth.metrics.AuthMetrics;
 import com.ss.utopia.auth.repository.PasswordResetRepository;
+import com.ss.utopia.auth.security.TokenDigests;
+import io.micrometer.core.annotation.Timed;
 import java.util.Optional;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,9 +25,11 @@ public class PasswordResetServiceImpl implements PasswordResetService {
 
   private final PasswordResetRepository passwordResetRepository;
   private final UserAccountService userAccountService;
-  private final BCryptPasswordEncoder passwordEncoder;
+  private final PasswordEncoder passwordEncoder;
   private final EmailClient emailClient;
+  private final RefreshTokenService refreshTokenService;
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
   @Transactional(rollbackFor = Exception.class)
   public String addPasswordReset(ResetPasswordDto resetPasswordDto) {
@@ -36,14 +42,16 @@ public class PasswordResetServiceImpl implements PasswordResetService {
     //Create UUID and PasswordReset object
     String customerToken = UUID.randomUUID().toString();
     PasswordReset passwordResetEntry = new PasswordReset();
-    Optional<PasswordReset> passwordObject = passwordResetRepository.findByEmail(email);
+    // by account, so requests whose emails differ only in case reuse the same row
+    Optional<PasswordReset> passwordObject = RepositoryLookupEvent.record(
+        PasswordReset.class, "userId", () -> passwordResetRepository.findByUserId(customerId));
 
     passwordObject.ifPresent(passwordReset -> passwordResetEntry.setId(passwordReset.getId()));
 
     //Set user parameters to PasswordReset object
     passwordResetEntry.setUserId(customerId);
-    passwordResetEntry.setToken(customerToken);
-    passwordResetEntry.setEmail(email);
+    passwordResetEntry.setTokenHash(TokenDigests.sha256(customerToken));
+    passwordResetEntry.setEmail(userAccount.getEmail());
     passwordResetEntry.setActive(true);
 
     //Save object into PasswordResetRepo
@@ -55,10 +63,11 @@ public class PasswordResetServiceImpl implements PasswordResetService {
     return customerToken;
   }
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
   public void changePassword(NewPasswordDto newPasswordDto) {
     String token = newPasswordDto.getToken();
-    var passwordResetRecord = passwordResetRepository.findByToken(token).orElseThrow();
+    var passwordResetRecord = findByToken(token).orElseThrow();
 
     if (!passwordResetRecord.isActive()) {
       throw new InvalidTokenException(token);
@@ -68,15 +77,24 @@ public class PasswordResetServiceImpl implements PasswordResetService {
 
     userAccount.setPassword(passwordEncoder.encode(newPasswordDto.getPassword()));
     userAccountService.updateAccount(userAccount);
+    // sessions started with the old password must not outlive the change
+    refreshTokenService.revokeAll(userAccount.getId());
 
     //update password reset
     passwordResetRecord.setActive(false);
     passwordResetRepository.save(passwordResetRecord);
   }
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
   public boolean tokenCheck(String token) {
-    var record = passwordResetRepository.findByToken(token).orElseThrow();
+    var record = findByToken(token).orElseThrow();
     return record.isActive();
   }
+
+  private Optional<PasswordReset> findByToken(String token) {
+    var tokenHash = TokenDigests.sha256(token);
+    return RepositoryLookupEvent.record(
+        PasswordReset.class, "token", () -> passwordResetRepository.findByTokenHash(tokenHash));
+  }
 }
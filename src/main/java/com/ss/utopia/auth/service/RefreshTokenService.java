@@ -0,0 +1,22 @@
+package com.ss.utopia.auth.service;
+
+import com.ss.utopia.auth.dto.AuthResponse;
+import java.util.UUID;
+
+public interface RefreshTokenService {
+
+  /**
+   * Create and store a new refresh token for an account.
+   *
+   * @return the raw token. Only its hash is stored so it cannot be retrieved again.
+   */
+  String createRefreshToken(UUID ownerAccountId);
+
+  /**
+   * Exchange a refresh token for a new access token and a new refresh token. The given token is
+   * consumed; presenting it again revokes every refresh token of its owner.
+   */
+  AuthResponse refresh(String refreshToken);
+
+  void revokeAll(UUID ownerAccountId);
+}
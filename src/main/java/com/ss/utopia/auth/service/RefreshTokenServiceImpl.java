@@ -0,0 +1,99 @@
+package com.ss.utopia.auth.service;
+
+import com.ss.utopia.auth.dto.AuthResponse;
+import com.ss.utopia.auth.entity.RefreshToken;
+import com.ss.utopia.auth.exception.InvalidRefreshTokenException;
+import com.ss.utopia.auth.jfr.RepositoryLookupEvent;
+import com.ss.utopia.auth.repository.RefreshTokenRepository;
+import com.ss.utopia.auth.repository.UserAccountRepository;
+import com.ss.utopia.auth.security.JwtTokenEngine;
+import com.ss.utopia.auth.security.SecurityConstants;
+import com.ss.utopia.auth.security.TokenDigests;
+import java.security.SecureRandom;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Issues opaque, rotating refresh tokens so clients can renew access tokens without sending
+ * credentials (and paying for a password hash) again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private final RefreshTokenRepository refreshTokenRepository;
+  // the repository rather than UserAccountService, which would depend on this service
+  private final UserAccountRepository userAccountRepository;
+  private final JwtTokenEngine jwtTokenEngine;
+  private final SecurityConstants securityConstants;
+
+  @Override
+  public String createRefreshToken(UUID ownerAccountId) {
+    var bytes = new byte[32];
+    RANDOM.nextBytes(bytes);
+    var token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+    var expiresAt = ZonedDateTime.now()
+        .plus(securityConstants.getRefreshTokenExpirationDuration(), ChronoUnit.MILLIS);
+    refreshTokenRepository.save(RefreshToken.builder()
+                                    .tokenHash(TokenDigests.sha256(token))
+                                    .ownerAccountId(ownerAccountId)
+                                    .expiresAt(expiresAt)
+                                    .build());
+    return token;
+  }
+
+  @Override
+  @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+  public AuthResponse refresh(String refreshToken) {
+    var tokenHash = TokenDigests.sha256(refreshToken);
+    var lookup = RepositoryLookupEvent.record(
+        RefreshToken.class, "token", () -> refreshTokenRepository.findByTokenHash(tokenHash));
+    var stored = lookup.orElseThrow(() -> new InvalidRefreshTokenException("unknown token"));
+    var ownerId = stored.getOwnerAccountId();
+    // before marking it used, so retrying an expired token is not taken for a replay
+    if (stored.getExpiresAt().isBefore(ZonedDateTime.now())) {
+      throw new InvalidRefreshTokenException("token expired");
+    }
+
+    // conditional update so two concurrent refreshes cannot both succeed
+    var reuseUntil = ZonedDateTime.now()
+        .plus(securityConstants.getRefreshTokenReuseDetectionWindow(), ChronoUnit.MILLIS);
+    if (refreshTokenRepository.markUsed(stored.getId(), reuseUntil) == 0) {
+      log.warn("Refresh token reused, revoking all refresh tokens of account=" + ownerId);
+      refreshTokenRepository.deleteAllByOwnerAccountId(ownerId);
+      throw new InvalidRefreshTokenException("token already used");
+    }
+
+    var user = userAccountRepository.findById(ownerId)
+        .orElseThrow(() -> new InvalidRefreshTokenException("account no longer exists"));
+    if (!user.isEnabled() || !user.isAccountNonLocked() || !user.isAccountNonExpired()) {
+      throw new InvalidRefreshTokenException("account is disabled or locked");
+    }
+
+    var expiresAt = securityConstants.getExpiresAt();
+    var jwt = jwtTokenEngine.createToken(user, expiresAt);
+    return AuthResponse.builder()
+        .userId(user.getId())
+        .token(securityConstants.getJwtHeaderPrefix() + jwt)
+        .expiresAt(expiresAt.getTime())
+        .refreshToken(createRefreshToken(user.getId()))
+        .build();
+  }
+
+  @Override
+  @Transactional
+  public void revokeAll(UUID ownerAccountId) {
+    log.debug("Revoke refresh tokens of account=" + ownerAccountId);
+    refreshTokenRepository.deleteAllByOwnerAccountId(ownerAccountId);
+  }
+}
@@ -0,0 +1,15 @@
+package com.ss.utopia.auth.service;
+
+import com.ss.utopia.auth.dto.TokenIntrospectionDto;
+
+public interface TokenIntrospectionService {
+
+  /**
+   * Verify an access token on behalf of a service that cannot verify it itself.
+   *
+   * @param token the token, with or without the header prefix.
+   * @return the token's principal if it is valid, otherwise why it was rejected. Never throws for
+   *     a bad token so one bad token does not fail a batch.
+   */
+  TokenIntrospectionDto introspect(String token);
+}
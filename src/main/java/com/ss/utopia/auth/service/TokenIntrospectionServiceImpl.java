@@ -0,0 +1,64 @@
+package com.ss.utopia.auth.service;
+
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.ss.utopia.auth.dto.TokenIntrospectionDto;
+import com.ss.utopia.auth.dto.TokenIntrospectionDto.ErrorCode;
+import com.ss.utopia.auth.security.JwtPrincipal;
+import com.ss.utopia.auth.security.SecurityConstants;
+import com.ss.utopia.auth.security.VerifiedTokenCache;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+/**
+ * Introspects tokens through the {@link VerifiedTokenCache}, so a token already seen by this
+ * instance, whether on a request or an earlier introspection, is not verified again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenIntrospectionServiceImpl implements TokenIntrospectionService {
+
+  private final VerifiedTokenCache verifiedTokenCache;
+  private final SecurityConstants securityConstants;
+
+  @Override
+  public TokenIntrospectionDto introspect(String token) {
+    if (token == null || token.isBlank()) {
+      return TokenIntrospectionDto.inactive(ErrorCode.MALFORMED);
+    }
+    var prefix = securityConstants.getJwtHeaderPrefix();
+    var jwt = prefix != null && token.startsWith(prefix) ? token.substring(prefix.length()) : token;
+
+    try {
+      var verified = verifiedTokenCache.getOrVerifyToken(jwt);
+      if (verified == null) {
+        return TokenIntrospectionDto.inactive(ErrorCode.INVALID);
+      }
+      var authentication = verified.getAuthentication();
+      var principal = (JwtPrincipal) authentication.getPrincipal();
+      var expiresAt = verified.getExpiresAtMillis();
+      return TokenIntrospectionDto.builder()
+          .active(true)
+          .userId(principal.getUserId())
+          .email(principal.getEmail())
+          .authorities(authentication.getAuthorities()
+                           .stream()
+                           .map(GrantedAuthority::getAuthority)
+                           .collect(Collectors.toList()))
+          .expiresAt(expiresAt == Long.MAX_VALUE ? null : expiresAt)
+          .build();
+    } catch (TokenExpiredException ex) {
+      return TokenIntrospectionDto.inactive(ErrorCode.EXPIRED);
+    } catch (JWTDecodeException ex) {
+      return TokenIntrospectionDto.inactive(ErrorCode.MALFORMED);
+    } catch (JWTVerificationException | IllegalArgumentException ex) {
+      log.debug("Introspected token rejected: " + ex.getMessage());
+      return TokenIntrospectionDto.inactive(ErrorCode.INVALID);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package com.ss.utopia.auth.service;
+
+import com.ss.utopia.auth.entity.SchedulerLease;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.repository.AccountActionTokenRepository;
+import com.ss.utopia.auth.repository.PasswordResetRepository;
+import com.ss.utopia.auth.repository.RefreshTokenRepository;
+import com.ss.utopia.auth.repository.SchedulerLeaseRepository;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes used or expired account action tokens, used password resets and expired refresh
+ * tokens.
+ *
+ * <p>Expired rows are found through their expiry index and password resets in key order, and
+ * deleted in batches of {@code batchSize}, each in its own short transaction, with pauses to stay
+ * under {@code maxRowsPerSecond}. A {@link SchedulerLease} makes sure only one instance reaps at
+ * a time; it is extended before every batch and the run stops as soon as it is lost.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConfigurationProperties(value = "com.ss.utopia.token-reaper", ignoreUnknownFields = false)
+public class TokenReaper {
+
+  static final String LEASE_NAME = "token-reaper";
+
+  private final AccountActionTokenRepository accountActionTokenRepository;
+  private final PasswordResetRepository passwordResetRepository;
+  private final RefreshTokenRepository refreshTokenRepository;
+  private final SchedulerLeaseRepository schedulerLeaseRepository;
+  private final AuthMetrics authMetrics;
+  private final String leaseOwner = UUID.randomUUID().toString();
+
+  @Getter
+  @Setter
+  private boolean enabled = true;
+  @Getter
+  @Setter
+  private long intervalMillis = 600_000;
+  @Getter
+  @Setter
+  private int batchSize = 500;
+  @Getter
+  @Setter
+  private int maxRowsPerSecond = 5_000;
+  @Getter
+  @Setter
+  private long leaseMillis = 300_000;
+
+  @Scheduled(fixedDelayString = "${com.ss.utopia.token-reaper.interval-millis:600000}")
+  public void reap() {
+    if (!enabled || !acquireLease()) {
+      return;
+    }
+    var deleted = reapActionTokens() + reapPasswordResets() + reapRefreshTokens();
+    if (deleted > 0) {
+      log.info("Reaped " + deleted + " expired or used token(s).");
+    }
+  }
+
+  int reapActionTokens() {
+    var now = ZonedDateTime.now();
+    return reapFromFront(
+        "account_action_token",
+        () -> accountActionTokenRepository.findReapableTokens(now, PageRequest.of(0, batchSize)),
+        tokens -> accountActionTokenRepository.deleteReapable(tokens, now));
+  }
+
+  int reapPasswordResets() {
+    return reapByKey(
+        "password_reset", 0L,
+        after -> passwordResetRepository.findInactiveIds(after, PageRequest.of(0, batchSize)),
+        passwordResetRepository::deleteInactive);
+  }
+
+  int reapRefreshTokens() {
+    var now = ZonedDateTime.now();
+    return reapFromFront(
+        "refresh_token",
+        () -> refreshTokenRepository.findExpiredIds(now, PageRequest.of(0, batchSize)),
+        ids -> refreshTokenRepository.deleteExpired(ids, now));
+  }
+
+  /**
+   * Delete the first page of a range over and over, for ranges that deleted rows leave such as
+   * rows expired before a fixed time.
+   *
+   * @return the number of rows deleted.
+   */
+  private <K> int reapFromFront(String table,
+                                Supplier<List<K>> findFirst,
+                                ToIntFunction<List<K>> delete) {
+    return reapPages(table, findFirst, delete);
+  }
+
+  /**
+   * Delete pages in key order, each starting after the last key of the previous one, for ranges
+   * where rows the delete skips would otherwise be read again.
+   *
+   * @return the number of rows deleted.
+   */
+  private <K> int reapByKey(String table, K start,
+                            Function<K, List<K>> findAfter,
+                            ToIntFunction<List<K>> delete) {
+    var after = new AtomicReference<>(start);
+    return reapPages(table, () -> {
+      var keys = findAfter.apply(after.get());
+      if (!keys.isEmpty()) {
+        after.set(keys.get(keys.size() - 1));
+      }
+      return keys;
+    }, delete);
+  }
+
+  /**
+   * Delete pages of keys until a short page, a page that deletes nothing, the lease is lost or the
+   * thread is interrupted.
+   */
+  private <K> int reapPages(String table,
+                            Supplier<List<K>> nextPage,
+                            ToIntFunction<List<K>> delete) {
+    var startNanos = System.nanoTime();
+    var deleted = 0;
+    while (true) {
+      var batchStart = System.nanoTime();
+      var keys = nextPage.get();
+      var batchDeleted = keys.isEmpty() ? 0 : delete.applyAsInt(keys);
+      deleted += batchDeleted;
+      if (keys.size() < batchSize || batchDeleted == 0
+          || !throttle(keys.size(), batchStart) || !acquireLease()) {
+        break;
+      }
+    }
+
+    authMetrics.recordReaped(table, deleted, System.nanoTime() - startNanos);
+    return deleted;
+  }
+
+  /**
+   * Sleep long enough after a batch to keep the delete rate under the limit.
+   *
+   * @return false if interrupted.
+   */
+  private boolean throttle(int rows, long batchStartNanos) {
+    var elapsedMillis = (System.nanoTime() - batchStartNanos) / 1_000_000;
+    var pauseMillis = rows * 1000L / maxRowsPerSecond - elapsedMillis;
+    if (pauseMillis <= 0) {
+      return true;
+    }
+    try {
+      Thread.sleep(pauseMillis);
+      return true;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private boolean acquireLease() {
+    var now = ZonedDateTime.now();
+    return schedulerLeaseRepository.acquire(LEASE_NAME, leaseOwner, now,
+                                            now.plus(leaseMillis, ChronoUnit.MILLIS));
+  }
+}
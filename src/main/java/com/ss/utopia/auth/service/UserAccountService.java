@@ -1,26 +1,57 @@
 package com.ss.utopia.auth.service;
 
+import com.ss.utopia.auth.dto.AccountLookupResultDto;
 import com.ss.utopia.auth.dto.CreateUserAccountDto;
 import com.ss.utopia.auth.dto.DeleteAccountDto;
+import com.ss.utopia.auth.dto.UserAccountPageDto;
+import com.ss.utopia.auth.dto.UserAccountSummaryDto;
 import com.ss.utopia.auth.entity.UserAccount;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface UserAccountService {
 
   List<UserAccount> getAll();
 
+  /**
+   * Page of account summaries ordered by id.
+   *
+   * @param after id of the last account of the previous page, or null for the first page.
+   * @param limit maximum number of accounts to return.
+   */
+  UserAccountPageDto getAccountPage(UUID after, int limit);
+
+  /**
+   * Pass every account summary to the consumer in id order, loading them in keyset chunks so only
+   * one chunk is in memory at a time.
+   */
+  void forEachAccountSummary(Consumer<UserAccountSummaryDto> consumer);
+
   UserAccount getById(UUID id);
 
   UserAccount getByEmail(String email);
 
+  /**
+   * Account summaries matching any of the given ids or emails, with one query per chunk of keys
+   * rather than one per key.
+   */
+  AccountLookupResultDto lookupAccounts(Collection<UUID> ids, Collection<String> emails);
+
   UserAccount createNewAccount(CreateUserAccountDto createUserAccountDto);
 
   void updateAccount(UserAccount userAccount);
 
   void sendAccountConfirmation(UserAccount userAccount);
 
-  void confirmAccountRegistration(UUID confirmationTokenId);
+  /**
+   * Send the confirmation email again if the email belongs to an account that is not confirmed
+   * yet, reusing a link that is still valid. Does nothing otherwise.
+   */
+  void resendAccountConfirmation(String email);
+
+  void confirmAccountRegistration(String confirmationToken);
 
   void deleteAccountById(UUID accountId);
 
@@ -28,5 +59,5 @@ public interface UserAccountService {
 
   void initiateCustomerDeletion(DeleteAccountDto deleteAccountDto);
 
-  UUID completeCustomerDeletion(UUID confirmationToken);
+  UUID completeCustomerDeletion(String confirmationToken);
 }
@@ -1,8 +1,11 @@
 package com.ss.utopia.auth.service;
 
 import com.ss.utopia.auth.client.EmailClient;
+import com.ss.utopia.auth.dto.AccountLookupResultDto;
 import com.ss.utopia.auth.dto.CreateUserAccountDto;
 import com.ss.utopia.auth.dto.DeleteAccountDto;
+import com.ss.utopia.auth.dto.UserAccountPageDto;
+import com.ss.utopia.auth.dto.UserAccountSummaryDto;
 import com.ss.utopia.auth.entity.AccountAction;
 import com.ss.utopia.auth.entity.UserAccount;
 import com.ss.utopia.auth.entity.UserRole;
@@ -11,33 +14,54 @@ import com.ss.utopia.auth.exception.EmailNotSentException;
 import com.ss.utopia.auth.exception.IllegalAccountModificationException;
 import com.ss.utopia.auth.exception.IllegalCustomerAccountDeletionException;
 import com.ss.utopia.auth.exception.NoSuchUserAccountException;
+import com.ss.utopia.auth.jfr.RepositoryLookupEvent;
+import com.ss.utopia.auth.metrics.AuthMetrics;
 import com.ss.utopia.auth.repository.UserAccountRepository;
+import com.ss.utopia.auth.security.UserDetailsCache;
+import io.micrometer.core.annotation.Timed;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.validation.Validation;
 import javax.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 @Slf4j
 @RequiredArgsConstructor
 @Service
 public class UserAccountServiceImpl implements UserAccountService {
 
+  private static final int EXPORT_CHUNK_SIZE = 500;
+  private static final int LOOKUP_CHUNK_SIZE = 500;
+
   private final UserAccountRepository userAccountRepository;
   private final AuthenticationManager authenticationManager;
-  private final BCryptPasswordEncoder passwordEncoder;
+  private final PasswordEncoder passwordEncoder;
   private final AccountActionTokenService accountActionTokenService;
   private final EmailClient emailClient;
+  private final UserDetailsCache userDetailsCache;
+  private final TransactionOperations transactionOperations;
   private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
   public List<UserAccount> getAll() {
     log.debug("Get all accounts.");
@@ -47,6 +71,36 @@ public class UserAccountServiceImpl implements UserAccountService {
         .collect(Collectors.toList());
   }
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
+  @Override
+  public UserAccountPageDto getAccountPage(UUID after, int limit) {
+    log.debug("Get account page after=" + after + " limit=" + limit);
+    var accounts = findSummaries(after, limit);
+    var nextCursor = accounts.size() < limit ? null : accounts.get(accounts.size() - 1).getId();
+    return new UserAccountPageDto(accounts, nextCursor);
+  }
+
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
+  @Override
+  public void forEachAccountSummary(Consumer<UserAccountSummaryDto> consumer) {
+    log.debug("Export all accounts.");
+    UUID after = null;
+    List<UserAccountSummaryDto> chunk;
+    do {
+      chunk = findSummaries(after, EXPORT_CHUNK_SIZE);
+      chunk.forEach(consumer);
+      after = chunk.isEmpty() ? null : chunk.get(chunk.size() - 1).getId();
+    } while (chunk.size() == EXPORT_CHUNK_SIZE);
+  }
+
+  private List<UserAccountSummaryDto> findSummaries(UUID after, int limit) {
+    var page = PageRequest.of(0, limit);
+    return after == null
+        ? userAccountRepository.findSummaries(page)
+        : userAccountRepository.findSummariesAfter(after, page);
+  }
+
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
   public UserAccount getById(UUID id) {
     log.debug("Get account=" + id);
@@ -54,51 +108,133 @@ public class UserAccountServiceImpl implements UserAccountService {
         .orElseThrow(() -> new NoSuchUserAccountException(id));
   }
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
   public UserAccount getByEmail(String email) {
     log.debug("Get account=" + email);
-    return userAccountRepository.findByEmail(email)
+    return RepositoryLookupEvent
+        .record(UserAccount.class, "email", () -> userAccountRepository.findByEmail(email))
         .orElseThrow(() -> new NoSuchUserAccountException(email));
   }
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
+  @Override
+  public AccountLookupResultDto lookupAccounts(Collection<UUID> ids, Collection<String> emails) {
+    log.debug("Lookup accounts ids=" + ids.size() + " emails=" + emails.size());
+    var accounts = new LinkedHashMap<UUID, UserAccountSummaryDto>();
+
+    var missingIds = ids.stream()
+        .filter(Objects::nonNull)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+    for (var chunk : chunks(missingIds)) {
+      userAccountRepository.findSummariesByIdIn(chunk).forEach(account -> {
+        accounts.put(account.getId(), account);
+        missingIds.remove(account.getId());
+      });
+    }
+
+    // requested emails by normalized form, so matches can be reported as the caller spelled them
+    var emailsByNormalized = new LinkedHashMap<String, List<String>>();
+    emails.stream()
+        .filter(Objects::nonNull)
+        .forEach(email -> emailsByNormalized
+            .computeIfAbsent(UserAccount.normalizeEmail(email), key -> new ArrayList<>())
+            .add(email));
+    var missingNormalized = new LinkedHashSet<>(emailsByNormalized.keySet());
+    for (var chunk : chunks(missingNormalized)) {
+      userAccountRepository.findSummariesByNormalizedEmailIn(chunk).forEach(account -> {
+        accounts.putIfAbsent(account.getId(), account);
+        missingNormalized.remove(UserAccount.normalizeEmail(account.getEmail()));
+      });
+    }
+
+    var missingEmails = emailsByNormalized.entrySet()
+        .stream()
+        .filter(entry -> missingNormalized.contains(entry.getKey()))
+        .flatMap(entry -> entry.getValue().stream())
+        .collect(Collectors.toList());
+    return new AccountLookupResultDto(new ArrayList<>(accounts.values()),
+                                      new ArrayList<>(missingIds),
+                                      missingEmails);
+  }
+
+  private static <T> List<List<T>> chunks(Collection<T> keys) {
+    var list = new ArrayList<>(keys);
+    var chunks = new ArrayList<List<T>>();
+    for (var from = 0; from < list.size(); from += LOOKUP_CHUNK_SIZE) {
+      chunks.add(list.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, list.size())));
+    }
+    return chunks;
+  }
+
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
   @Transactional(rollbackFor = EmailNotSentException.class)
   public UserAccount createNewAccount(CreateUserAccountDto createUserAccountDto) {
     validateDto(createUserAccountDto);
     log.debug("Create new account email=" + createUserAccountDto.getEmail());
 
-    userAccountRepository.findByEmail(createUserAccountDto.getEmail())
-        .ifPresent(userAccount -> {
-          throw new DuplicateEmailException(createUserAccountDto.getEmail());
-        });
+    // cheap check first so known emails don't take a slot on the hashing pool
+    var email = createUserAccountDto.getEmail();
+    if (userAccountRepository.existsByNormalizedEmail(UserAccount.normalizeEmail(email))) {
+      throw new DuplicateEmailException(email);
+    }
 
     var account = UserAccount.builder()
         .email(createUserAccountDto.getEmail())
         .password(passwordEncoder.encode(createUserAccountDto.getPassword()))
         .build();
 
-    account = userAccountRepository.save(account);
+    try {
+      // flush now so the unique normalized email index rejects duplicates here
+      account = userAccountRepository.saveAndFlush(account);
+    } catch (DataIntegrityViolationException ex) {
+      if (isDuplicateEmail(ex)) {
+        throw new DuplicateEmailException(email);
+      }
+      throw ex;
+    }
 
-    sendAccountConfirmation(account);
+    var confirmationToken = accountActionTokenService.createToken(account,
+                                                                  AccountAction.CONFIRMATION);
+    emailClient.sendConfirmAccountEmail(account.getEmail(), confirmationToken);
 
     return account;
   }
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
   public void sendAccountConfirmation(UserAccount userAccount) {
     log.debug("Send account confirmation account=" + userAccount.getId());
-    var confirmationToken = accountActionTokenService.createToken(userAccount.getId(),
-                                                                  AccountAction.CONFIRMATION);
+    var confirmationToken = accountActionTokenService.getOrCreateToken(userAccount,
+                                                                       AccountAction.CONFIRMATION);
 
-    emailClient.sendConfirmAccountEmail(userAccount.getEmail(), confirmationToken.getToken());
+    emailClient.sendConfirmAccountEmail(userAccount.getEmail(), confirmationToken);
   }
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
-  public void confirmAccountRegistration(UUID confirmationTokenId) {
-    log.debug("Confirm account, token=" + confirmationTokenId);
-    var token = accountActionTokenService.getAndValidateToken(confirmationTokenId);
+  @Transactional
+  public void resendAccountConfirmation(String email) {
+    log.debug("Resend account confirmation email=" + email);
+    var account = RepositoryLookupEvent
+        .record(UserAccount.class, "email", () -> userAccountRepository.findByEmail(email));
+    if (account.isEmpty() || account.get().isConfirmed()) {
+      log.debug("No unconfirmed account, not resending.");
+      return;
+    }
+    sendAccountConfirmation(account.get());
+  }
 
-    var account = getById(token.getOwnerAccountId());
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
+  @Override
+  @Transactional
+  public void confirmAccountRegistration(String confirmationToken) {
+    log.debug("Confirm account.");
+    var ownerId = accountActionTokenService.consumeToken(confirmationToken,
+                                                         AccountAction.CONFIRMATION);
+
+    var account = getById(ownerId);
     account.setConfirmed(true);
 
     // don't modify non-customer accounts with confirmation
@@ -106,22 +242,32 @@ public class UserAccountServiceImpl implements UserAccountService {
       account.setUserRole(UserRole.CUSTOMER);
     }
     userAccountRepository.save(account);
+    userDetailsCache.evict(account.getEmail());
   }
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
   public void updateAccount(UserAccount userAccount) {
     log.debug("Update account=" + userAccount.getId());
     userAccountRepository.findById(userAccount.getId())
-        .ifPresent(a -> userAccountRepository.save(userAccount));
+        .ifPresent(existing -> {
+          // evict the stored email too in case this update changes it
+          userDetailsCache.evict(existing.getEmail());
+          userAccountRepository.save(userAccount);
+        });
+    userDetailsCache.evict(userAccount.getEmail());
   }
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
   public void deleteAccountById(UUID accountId) {
     log.debug("Delete account=" + accountId);
     var account = getById(accountId);
     userAccountRepository.delete(account);
+    userDetailsCache.evict(account.getEmail());
   }
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
   public void updateEmail(UUID accountId, String newEmail) {
     if (newEmail == null || newEmail.isBlank() || !newEmail.contains("@")) {
@@ -131,31 +277,39 @@ public class UserAccountServiceImpl implements UserAccountService {
     if (!isCustomerOrDefault(account)) {
       throw new IllegalAccountModificationException(account);
     }
+    // within a transaction updateAccount sees this instance, not the stored email
+    var previousEmail = account.getEmail();
     account.setEmail(newEmail);
     updateAccount(account);
+    userDetailsCache.evict(previousEmail);
   }
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
   public void initiateCustomerDeletion(DeleteAccountDto deleteAccountDto) {
     log.debug("Initiate deletion=" + deleteAccountDto.getEmail());
+    // BCrypt may wait for the hashing pool, so it runs before a connection is taken
     authenticate(deleteAccountDto);
 
-    var account = getById(deleteAccountDto.getId());
+    transactionOperations.executeWithoutResult(status -> {
+      var account = getById(deleteAccountDto.getId());
 
-    if (!isCustomerOrDefault(account)) {
-      throw new IllegalCustomerAccountDeletionException(account);
-    }
+      if (!isCustomerOrDefault(account)) {
+        throw new IllegalCustomerAccountDeletionException(account);
+      }
 
-    var actionToken = accountActionTokenService.createToken(account.getId(),
-                                                            AccountAction.DELETION);
-    emailClient.sendDeleteAccountEmail(account.getEmail(), actionToken.getToken());
+      var actionToken = accountActionTokenService.createToken(account, AccountAction.DELETION);
+      emailClient.sendDeleteAccountEmail(account.getEmail(), actionToken);
+    });
   }
 
+  @Timed(value = AuthMetrics.SERVICE_TIMER, histogram = true)
   @Override
-  public UUID completeCustomerDeletion(UUID confirmationToken) {
-    log.debug("Complete deletion token=" + confirmationToken);
-    var actionToken = accountActionTokenService.getAndValidateToken(confirmationToken);
-    var ownerId = actionToken.getOwnerAccountId();
+  @Transactional
+  public UUID completeCustomerDeletion(String confirmationToken) {
+    log.debug("Complete deletion.");
+    var ownerId = accountActionTokenService.consumeToken(confirmationToken,
+                                                         AccountAction.DELETION);
     var account = getById(ownerId);
 
     if (!isCustomerOrDefault(account)) {
@@ -163,7 +317,6 @@ public class UserAccountServiceImpl implements UserAccountService {
     }
 
     deleteAccountById(ownerId);
-    accountActionTokenService.deleteToken(actionToken);
     return account.getId();
   }
 
@@ -174,6 +327,16 @@ public class UserAccountServiceImpl implements UserAccountService {
     authenticationManager.authenticate(authToken);
   }
 
+  private static boolean isDuplicateEmail(DataIntegrityViolationException ex) {
+    if (!(ex.getCause() instanceof ConstraintViolationException)) {
+      return false;
+    }
+    // some databases report the backing index name, which starts with the constraint name
+    var constraint = ((ConstraintViolationException) ex.getCause()).getConstraintName();
+    return constraint != null
+        && constraint.toLowerCase(Locale.ROOT).contains(UserAccount.NORMALIZED_EMAIL_KEY);
+  }
+
   private boolean isCustomerOrDefault(UserAccount userAccount) {
     return userAccount.getUserRole().equals(UserRole.CUSTOMER)
         || userAccount.getUserRole().equals(UserRole.DEFAULT);
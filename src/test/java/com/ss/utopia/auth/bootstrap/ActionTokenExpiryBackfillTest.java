@@ -0,0 +1,75 @@
+package com.ss.utopia.auth.bootstrap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ss.utopia.auth.entity.AccountAction;
+import com.ss.utopia.auth.entity.AccountActionToken;
+import com.ss.utopia.auth.entity.SchedulerLease;
+import com.ss.utopia.auth.repository.AccountActionTokenRepository;
+import com.ss.utopia.auth.repository.SchedulerLeaseRepository;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+@DataJpaTest
+class ActionTokenExpiryBackfillTest {
+
+  @Autowired
+  AccountActionTokenRepository accountActionTokenRepository;
+  @Autowired
+  SchedulerLeaseRepository schedulerLeaseRepository;
+  @Autowired
+  TestEntityManager entityManager;
+
+  ActionTokenExpiryBackfill backfill;
+
+  @BeforeEach
+  void beforeEach() {
+    backfill = new ActionTokenExpiryBackfill(accountActionTokenRepository,
+                                             schedulerLeaseRepository);
+    backfill.setBatchSize(2);
+  }
+
+  @Test
+  void test_run_FillsExpiryFromCreationInBatches() {
+    legacyToken(AccountAction.CONFIRMATION);
+    legacyToken(AccountAction.CONFIRMATION);
+    legacyToken(AccountAction.DELETION);
+
+    backfill.run(null);
+    entityManager.flush();
+    entityManager.clear();
+
+    assertFalse(accountActionTokenRepository.existsByExpiresAtIsNull());
+    for (var token : accountActionTokenRepository.findAll()) {
+      assertEquals(token.getAction().getMinutesToLive(),
+                   Duration.between(token.getCreation(), token.getExpiresAt()).toMinutes());
+    }
+  }
+
+  @Test
+  void test_run_SkipsWhileAnotherInstanceHoldsTheLease() {
+    legacyToken(AccountAction.CONFIRMATION);
+    schedulerLeaseRepository.saveAndFlush(
+        new SchedulerLease(ActionTokenExpiryBackfill.LEASE_NAME, "other",
+                           ZonedDateTime.now().plusMinutes(5)));
+
+    backfill.run(null);
+
+    assertTrue(accountActionTokenRepository.existsByExpiresAtIsNull());
+  }
+
+  private void legacyToken(AccountAction action) {
+    accountActionTokenRepository.saveAndFlush(AccountActionToken.builder()
+                                                  .ownerAccountId(UUID.randomUUID())
+                                                  .action(action)
+                                                  .build());
+  }
+}
@@ -0,0 +1,73 @@
+package com.ss.utopia.auth.bootstrap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ss.utopia.auth.repository.UserAccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// seeding threads use their own connections, so nothing here can run in a test transaction
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkDataSeederTest {
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+  @Autowired
+  UserAccountRepository userAccountRepository;
+
+  BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+  BulkDataSeeder seeder;
+
+  @BeforeEach
+  void beforeEach() {
+    seeder = new BulkDataSeeder(jdbcTemplate, passwordEncoder);
+    seeder.setAccounts(50);
+    seeder.setActionTokens(20);
+    seeder.setPasswordResets(10);
+    seeder.setBatchSize(7);
+    seeder.setThreads(3);
+  }
+
+  @AfterEach
+  void afterEach() {
+    jdbcTemplate.update("DELETE FROM password_reset");
+    jdbcTemplate.update("DELETE FROM account_action_token");
+    jdbcTemplate.update("DELETE FROM user_account");
+  }
+
+  @Test
+  void test_run_InsertsRowsReadableThroughTheEntities() throws Exception {
+    seeder.run(null);
+
+    assertEquals(50, userAccountRepository.count());
+    assertEquals(20, count("SELECT COUNT(*) FROM account_action_token t"
+                               + " JOIN user_account a ON a.id = t.owner_account_id"));
+    assertEquals(10, count("SELECT COUNT(*) FROM password_reset r"
+                               + " JOIN user_account a ON a.id = r.user_id"));
+
+    var account = userAccountRepository.findByEmail("SEED-42@seed.test.com").orElseThrow();
+    assertTrue(passwordEncoder.matches("test", account.getPassword()));
+  }
+
+  @Test
+  void test_run_SkipsWhenSeededAccountsExist() throws Exception {
+    seeder.run(null);
+    seeder.setAccounts(60);
+    seeder.run(null);
+
+    assertEquals(50, userAccountRepository.count());
+  }
+
+  private long count(String sql) {
+    return jdbcTemplate.queryForObject(sql, Long.class);
+  }
+}
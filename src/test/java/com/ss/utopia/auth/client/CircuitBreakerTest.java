@@ -0,0 +1,51 @@
+package com.ss.utopia.auth.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ss.utopia.auth.client.CircuitBreaker.State;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+  final AtomicLong now = new AtomicLong();
+  final CircuitBreaker breaker = new CircuitBreaker(2, 1_000, now::get);
+
+  @Test
+  void test_onFailure_OpensAfterConsecutiveFailures() {
+    breaker.onFailure();
+    breaker.onSuccess();
+    breaker.onFailure();
+    assertEquals(State.CLOSED, breaker.getState());
+
+    breaker.onFailure();
+
+    assertEquals(State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  @Test
+  void test_tryAcquire_AllowsSingleProbeAfterOpenPeriod() {
+    breaker.onFailure();
+    breaker.onFailure();
+    now.addAndGet(1_000);
+
+    assertTrue(breaker.tryAcquire());
+    assertEquals(State.HALF_OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire());
+
+    // failed probe reopens for another full period
+    breaker.onFailure();
+    assertEquals(State.OPEN, breaker.getState());
+    now.addAndGet(999);
+    assertFalse(breaker.tryAcquire());
+
+    now.addAndGet(1);
+    assertTrue(breaker.tryAcquire());
+    breaker.onSuccess();
+    assertEquals(State.CLOSED, breaker.getState());
+    assertTrue(breaker.tryAcquire());
+  }
+}
@@ -0,0 +1,127 @@
+package com.ss.utopia.auth.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ss.utopia.auth.entity.EmailOutboxMessage;
+import com.ss.utopia.auth.entity.EmailOutboxMessage.EmailType;
+import com.ss.utopia.auth.entity.EmailOutboxMessage.Status;
+import com.ss.utopia.auth.exception.EmailCircuitOpenException;
+import com.ss.utopia.auth.exception.EmailNotSentException;
+import com.ss.utopia.auth.exception.EmailRejectedException;
+import com.ss.utopia.auth.repository.EmailOutboxRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+
+class EmailOutboxDispatcherTest {
+
+  EmailOutboxRepository repository = Mockito.mock(EmailOutboxRepository.class);
+  RestTemplateEmailClient restTemplateEmailClient = Mockito.mock(RestTemplateEmailClient.class);
+
+  EmailOutboxDispatcher dispatcher = new EmailOutboxDispatcher(repository,
+                                                               restTemplateEmailClient);
+
+  String confirmationToken = UUID.randomUUID().toString();
+
+  EmailOutboxMessage message = EmailOutboxMessage.builder()
+      .id(1L)
+      .type(EmailType.ACCOUNT_CONFIRMATION)
+      .recipient("test@test.com")
+      .token(confirmationToken)
+      .nextAttemptAt(ZonedDateTime.now())
+      .build();
+
+  @BeforeEach
+  void beforeEach() {
+    dispatcher.setMaxAttempts(2);
+    when(repository.findDueIds(eq(Status.PENDING), any(), any())).thenReturn(List.of(1L));
+    when(repository.claim(anyList(), any(), eq(Status.PENDING), any(), any())).thenReturn(1);
+    when(repository.findAllByClaimToken(any())).thenReturn(List.of(message));
+    when(repository.renewClaim(eq(1L), any(), any())).thenReturn(1);
+  }
+
+  @Test
+  void test_dispatchBatch_SendsAndDeletesClaimedMessages() {
+    assertEquals(1, dispatcher.dispatchBatch());
+
+    verify(restTemplateEmailClient).sendConfirmAccountEmail("test@test.com", confirmationToken);
+    verify(repository).delete(message);
+  }
+
+  @Test
+  void test_dispatchBatch_BacksOffThenGivesUpOnFailures() {
+    doThrow(new EmailNotSentException("slow down", HttpStatus.TOO_MANY_REQUESTS))
+        .when(restTemplateEmailClient).sendConfirmAccountEmail(any(), any());
+
+    dispatcher.dispatchBatch();
+
+    assertEquals(1, message.getAttempts());
+    assertEquals(Status.PENDING, message.getStatus());
+    assertNull(message.getClaimToken());
+    assertTrue(message.getNextAttemptAt().isAfter(ZonedDateTime.now()));
+
+    dispatcher.dispatchBatch();
+
+    assertEquals(2, message.getAttempts());
+    assertEquals(Status.FAILED, message.getStatus());
+    assertEquals("", message.getToken());
+    verify(repository, never()).delete(any());
+  }
+
+  @Test
+  void test_dispatchBatch_GivesUpRightAwayOnRejectedEmails() {
+    dispatcher.setMaxAttempts(8);
+    doThrow(new EmailRejectedException("bad recipient", HttpStatus.BAD_REQUEST))
+        .when(restTemplateEmailClient).sendConfirmAccountEmail(any(), any());
+
+    dispatcher.dispatchBatch();
+
+    assertEquals(1, message.getAttempts());
+    assertEquals(Status.FAILED, message.getStatus());
+  }
+
+  @Test
+  void test_dispatchBatch_DoesNotCountCircuitBreakerRefusalsAsAttempts() {
+    doThrow(new EmailCircuitOpenException())
+        .when(restTemplateEmailClient).sendConfirmAccountEmail(any(), any());
+
+    dispatcher.dispatchBatch();
+    dispatcher.dispatchBatch();
+
+    assertEquals(0, message.getAttempts());
+    assertEquals(Status.PENDING, message.getStatus());
+    assertNull(message.getClaimToken());
+    assertTrue(message.getNextAttemptAt().isAfter(ZonedDateTime.now()));
+  }
+
+  @Test
+  void test_dispatchBatch_SkipsMessagesWhoseClaimWasTakenOver() {
+    when(repository.renewClaim(eq(1L), any(), any())).thenReturn(0);
+
+    dispatcher.dispatchBatch();
+
+    verify(restTemplateEmailClient, never()).sendConfirmAccountEmail(any(), any());
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void test_dispatchBatch_SkipsBatchClaimedByAnotherDispatcher() {
+    when(repository.claim(anyList(), any(), eq(Status.PENDING), any(), any())).thenReturn(0);
+
+    assertEquals(0, dispatcher.dispatchBatch());
+    verify(repository, never()).findAllByClaimToken(any());
+  }
+}
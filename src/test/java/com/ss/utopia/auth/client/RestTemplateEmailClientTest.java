@@ -1,25 +1,39 @@
 package com.ss.utopia.auth.client;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 import com.ss.utopia.auth.client.email.AccountConfirmationEmail;
 import com.ss.utopia.auth.client.email.DeleteAccountEmail;
 import com.ss.utopia.auth.client.email.PasswordResetEmail;
 import com.ss.utopia.auth.exception.EmailNotSentException;
+import com.ss.utopia.auth.exception.EmailRejectedException;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.UUID;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 class RestTemplateEmailClientTest {
 
   RestTemplateBuilder restTemplateBuilder = Mockito.mock(RestTemplateBuilder.class);
   RestTemplate restTemplate = Mockito.mock(RestTemplate.class);
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
   RestTemplateEmailClient emailClient;
 
@@ -30,8 +44,12 @@ class RestTemplateEmailClientTest {
 
   @BeforeEach
   void beforeEach() {
+    when(restTemplateBuilder.requestFactory(
+        ArgumentMatchers.<Supplier<ClientHttpRequestFactory>>any()))
+        .thenReturn(restTemplateBuilder);
     when(restTemplateBuilder.build()).thenReturn(restTemplate);
-    emailClient = new RestTemplateEmailClient();
+    emailClient = new RestTemplateEmailClient(new AuthMetrics(meterRegistry));
+    emailClient.setBreakerFailureThreshold(2);
     emailClient.setBuilder(restTemplateBuilder);
     emailClient.postConstruct();
 
@@ -59,6 +77,10 @@ class RestTemplateEmailClientTest {
 
     Mockito.verify(restTemplate)
         .postForEntity(mockSesEndpoint, expectedObject, String.class);
+    assertEquals(1, meterRegistry.get("utopia.auth.email")
+        .tags("type", "PasswordResetEmail", "outcome", "success")
+        .timer()
+        .count());
   }
 
   @Test
@@ -101,7 +123,7 @@ class RestTemplateEmailClientTest {
 
   @Test
   void test_sendConfirmAccountEmail_CreatesAndPostsCorrectEmailObject() {
-    var mockToken = UUID.randomUUID();
+    var mockToken = UUID.randomUUID().toString();
     var mockEmail = "test@test.com";
 
     var mockUrl = mockConfirmationBaseUrl + "/" + mockToken;
@@ -119,7 +141,7 @@ class RestTemplateEmailClientTest {
 
   @Test
   void test_sendConfirmAccountEmail_ThrowsEmailNotSentExceptionIfBadResponse() {
-    var mockToken = UUID.randomUUID();
+    var mockToken = UUID.randomUUID().toString();
     var mockEmail = "test@test.com";
 
     var mockUrl = mockConfirmationBaseUrl + "/" + mockToken;
@@ -138,7 +160,7 @@ class RestTemplateEmailClientTest {
 
   @Test
   void test_sendConfirmAccountEmail_ThrowsEmailNotSentExceptionIfNullResponse() {
-    var mockToken = UUID.randomUUID();
+    var mockToken = UUID.randomUUID().toString();
     var mockEmail = "test@test.com";
 
     var mockUrl = mockConfirmationBaseUrl + "/" + mockToken;
@@ -157,7 +179,7 @@ class RestTemplateEmailClientTest {
 
   @Test
   void test_sendDeleteAccountEmail_CreatesAndPostsCorrectEmailObject() {
-    var mockToken = UUID.randomUUID();
+    var mockToken = UUID.randomUUID().toString();
     var mockEmail = "test@test.com";
 
     var mockUrl = mockDeletionBaseUrl + "/" + mockToken;
@@ -175,7 +197,7 @@ class RestTemplateEmailClientTest {
 
   @Test
   void test_sendDeleteAccountEmail_ThrowsEmailNotSentExceptionIfBadResponse() {
-    var mockToken = UUID.randomUUID();
+    var mockToken = UUID.randomUUID().toString();
     var mockEmail = "test@test.com";
 
     var mockUrl = mockDeletionBaseUrl + "/" + mockToken;
@@ -194,7 +216,7 @@ class RestTemplateEmailClientTest {
 
   @Test
   void test_sendDeleteAccountEmail_ThrowsEmailNotSentExceptionIfNullResponse() {
-    var mockToken = UUID.randomUUID();
+    var mockToken = UUID.randomUUID().toString();
     var mockEmail = "test@test.com";
 
     var mockUrl = mockDeletionBaseUrl + "/" + mockToken;
@@ -210,4 +232,64 @@ class RestTemplateEmailClientTest {
     Mockito.verify(restTemplate)
         .postForEntity(mockSesEndpoint, expectedObject, String.class);
   }
+
+  @Test
+  void test_sendConfirmAccountEmail_FailsFastOnceCircuitBreakerOpens() {
+    var mockToken = UUID.randomUUID().toString();
+    var mockEmail = "test@test.com";
+
+    when(restTemplate.postForEntity(any(String.class), any(), any()))
+        .thenThrow(new ResourceAccessException("Read timed out"));
+
+    // timeouts surface as EmailNotSentException and count towards the breaker threshold of 2
+    for (int i = 0; i < 3; i++) {
+      assertThrows(EmailNotSentException.class,
+                   () -> emailClient.sendConfirmAccountEmail(mockEmail, mockToken));
+    }
+
+    Mockito.verify(restTemplate, Mockito.times(2)).postForEntity(any(String.class), any(), any());
+    assertEquals(CircuitBreaker.State.OPEN, emailClient.getCircuitBreakerState());
+    assertEquals(2, meterRegistry.get("utopia.auth.email").tag("outcome", "failure").timer()
+        .count());
+    assertEquals(1, meterRegistry.get("utopia.auth.email.breaker.state").tag("state", "open")
+        .gauge().value());
+    assertEquals(0, meterRegistry.get("utopia.auth.email.breaker.state").tag("state", "closed")
+        .gauge().value());
+    assertEquals(0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+        .tags("httpclient", "email", "state", "leased").gauge().value());
+  }
+
+  @Test
+  void test_sendConfirmAccountEmail_ClientErrorsDoNotOpenCircuitBreaker() {
+    var mockToken = UUID.randomUUID().toString();
+    var mockEmail = "bad@test.com";
+
+    when(restTemplate.postForEntity(any(String.class), any(), any()))
+        .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+
+    for (int i = 0; i < 3; i++) {
+      assertThrows(EmailRejectedException.class,
+                   () -> emailClient.sendConfirmAccountEmail(mockEmail, mockToken));
+    }
+
+    Mockito.verify(restTemplate, Mockito.times(3)).postForEntity(any(String.class), any(), any());
+    assertEquals(CircuitBreaker.State.CLOSED, emailClient.getCircuitBreakerState());
+  }
+
+  @Test
+  void test_sendConfirmAccountEmail_ServerErrorsOpenCircuitBreaker() {
+    var mockToken = UUID.randomUUID().toString();
+    var mockEmail = "test@test.com";
+
+    when(restTemplate.postForEntity(any(String.class), any(), any()))
+        .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+    for (int i = 0; i < 2; i++) {
+      var ex = assertThrows(EmailNotSentException.class,
+                            () -> emailClient.sendConfirmAccountEmail(mockEmail, mockToken));
+      assertFalse(ex instanceof EmailRejectedException);
+    }
+
+    assertEquals(CircuitBreaker.State.OPEN, emailClient.getCircuitBreakerState());
+  }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.ss.utopia.auth.controller;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ss.utopia.auth.dto.IntrospectTokensDto;
+import com.ss.utopia.auth.dto.TokenIntrospectionDto;
+import com.ss.utopia.auth.dto.TokenIntrospectionDto.ErrorCode;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.security.JwtTokenEngine;
+import com.ss.utopia.auth.security.SecurityConstants;
+import com.ss.utopia.auth.security.VerifiedTokenCache;
+import com.ss.utopia.auth.service.RefreshTokenService;
+import com.ss.utopia.auth.service.TokenIntrospectionService;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+@WebMvcTest(AuthenticationController.class)
+class AuthenticationControllerTest {
+
+  static final String INTROSPECT = "/authenticate/introspect";
+
+  ObjectMapper jsonMapper = new ObjectMapper();
+
+  @Autowired
+  WebApplicationContext wac;
+
+  @MockBean
+  TokenIntrospectionService tokenIntrospectionService;
+
+  @MockBean
+  SecurityConstants securityConstants;
+
+  @MockBean
+  JwtTokenEngine jwtTokenEngine;
+
+  @MockBean
+  VerifiedTokenCache verifiedTokenCache;
+
+  @MockBean
+  RefreshTokenService refreshTokenService;
+
+  @MockBean
+  AuthMetrics authMetrics;
+
+  private MockMvc mvc;
+
+  @BeforeEach
+  void beforeEach() {
+    when(securityConstants.getEndpoint()).thenReturn("/login");
+    when(securityConstants.getJwtHeaderName()).thenReturn("Authorization");
+    when(securityConstants.getJwtHeaderPrefix()).thenReturn("Bearer ");
+
+    mvc = MockMvcBuilders
+        .webAppContextSetup(wac)
+        .apply(springSecurity())
+        .build();
+  }
+
+  @Test
+  @WithMockUser(roles = "SERVICE")
+  void test_introspect_ReturnsOneResultPerTokenInRequestOrder() throws Exception {
+    var userId = UUID.randomUUID();
+    when(tokenIntrospectionService.introspect("good")).thenReturn(
+        TokenIntrospectionDto.builder()
+            .active(true)
+            .userId(userId)
+            .email("test@test.com")
+            .authorities(List.of("ROLE_CUSTOMER"))
+            .expiresAt(1234L)
+            .build());
+    when(tokenIntrospectionService.introspect("expired"))
+        .thenReturn(TokenIntrospectionDto.inactive(ErrorCode.EXPIRED));
+
+    var result = mvc.perform(post(INTROSPECT)
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .content(body(List.of("expired", "good"))))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2))
+        .andExpect(jsonPath("$[0].active").value(false))
+        .andExpect(jsonPath("$[0].error").value("EXPIRED"))
+        .andExpect(jsonPath("$[0].userId").doesNotExist())
+        .andExpect(jsonPath("$[1].active").value(true))
+        .andExpect(jsonPath("$[1].userId").value(userId.toString()))
+        .andExpect(jsonPath("$[1].authorities[0]").value("ROLE_CUSTOMER"))
+        .andExpect(jsonPath("$[1].expiresAt").value(1234));
+  }
+
+  @Test
+  @WithMockUser(roles = "CUSTOMER")
+  void test_introspect_ForbiddenForCustomers() throws Exception {
+    mvc.perform(post(INTROSPECT)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body(List.of("token"))))
+        .andExpect(status().isForbidden());
+
+    verify(tokenIntrospectionService, never()).introspect(anyString());
+  }
+
+  @Test
+  @WithMockUser(roles = "SERVICE")
+  void test_introspect_RejectsOversizedBatch() throws Exception {
+    var tokens = Collections.nCopies(IntrospectTokensDto.MAX_TOKENS + 1, "token");
+
+    mvc.perform(post(INTROSPECT)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body(tokens)))
+        .andExpect(status().isBadRequest());
+  }
+
+  private String body(List<String> tokens) throws Exception {
+    return jsonMapper.writeValueAsString(new IntrospectTokensDto(tokens));
+  }
+}
@@ -0,0 +1,87 @@
+package com.ss.utopia.auth.controller;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.security.JsonWebKeySet;
+import com.ss.utopia.auth.security.JwtTokenEngine;
+import com.ss.utopia.auth.security.SecurityConstants;
+import com.ss.utopia.auth.security.VerifiedTokenCache;
+import com.ss.utopia.auth.service.RefreshTokenService;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+@WebMvcTest(JwksController.class)
+class JwksControllerTest {
+
+  final JsonWebKeySet jwks = new JsonWebKeySet(
+      List.of(Map.of("kty", "RSA", "kid", "rsa-1", "n", "AQAB", "e", "AQAB")), "\"abc123\"");
+
+  @Autowired
+  WebApplicationContext wac;
+
+  @MockBean
+  SecurityConstants securityConstants;
+
+  @MockBean
+  JwtTokenEngine jwtTokenEngine;
+
+  @MockBean
+  VerifiedTokenCache verifiedTokenCache;
+
+  @MockBean
+  RefreshTokenService refreshTokenService;
+
+  @MockBean
+  AuthMetrics authMetrics;
+
+  private MockMvc mvc;
+
+  @BeforeEach
+  void beforeEach() {
+    when(securityConstants.getEndpoint()).thenReturn("/login");
+    when(securityConstants.getJwtHeaderName()).thenReturn("Authorization");
+    when(securityConstants.getJwtHeaderPrefix()).thenReturn("Bearer ");
+    when(securityConstants.getJwksMaxAgeSeconds()).thenReturn(600L);
+    when(jwtTokenEngine.getJsonWebKeySet()).thenReturn(jwks);
+
+    mvc = MockMvcBuilders
+        .webAppContextSetup(wac)
+        .apply(springSecurity())
+        .build();
+  }
+
+  @Test
+  void test_getJsonWebKeySet_IsPublicAndCacheable() throws Exception {
+    mvc.perform(get(EndpointConstants.JWKS))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"abc123\""))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=600, public"))
+        .andExpect(jsonPath("$.keys[0].kid").value("rsa-1"))
+        .andExpect(jsonPath("$.etag").doesNotExist());
+  }
+
+  @Test
+  void test_getJsonWebKeySet_NotModifiedWhenETagMatches() throws Exception {
+    mvc.perform(get(EndpointConstants.JWKS)
+                    .header(HttpHeaders.IF_NONE_MATCH, "\"abc123\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=600, public"))
+        .andExpect(content().string(""));
+  }
+}
@@ -112,6 +112,39 @@ public class UserAccountControllerSecurityTests {
     assertEquals(403, result.getResponse().getStatus());
   }
 
+  @Test
+  void test_prometheus_OnlyAllowedByService() throws Exception {
+    var result = mvc
+        .perform(
+            get("/actuator/prometheus")
+                .header("Authorization", getJwt(MockUser.SERVICE)))
+        .andReturn();
+    assertNotEquals(403, result.getResponse().getStatus());
+    assertNotEquals(401, result.getResponse().getStatus());
+
+    var notauthed = List.of(MockUser.ADMIN,
+                            MockUser.EMPLOYEE,
+                            MockUser.TRAVEL_AGENT,
+                            MockUser.MATCH_CUSTOMER,
+                            MockUser.DEFAULT);
+    for (var user : notauthed) {
+      result = mvc
+          .perform(
+              get("/actuator/prometheus")
+                  .header("Authorization", getJwt(user)))
+          .andReturn();
+      assertEquals(403, result.getResponse().getStatus(), "Failure on: " + user);
+    }
+
+    result = mvc
+        .perform(
+            get("/actuator/prometheus"))
+        .andReturn();
+    assertEquals(403, result.getResponse().getStatus());
+    assertNotEquals(403, mvc.perform(get("/actuator/health")).andReturn().getResponse()
+        .getStatus());
+  }
+
   @Test
   void test_createNewAccount_AllowedByAny() throws Exception {
     var alwaysAuthed = List.of(MockUser.ADMIN,
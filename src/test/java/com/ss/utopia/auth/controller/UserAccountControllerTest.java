@@ -1,41 +1,71 @@
 package com.ss.utopia.auth.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.ss.utopia.auth.dto.AccountLookupDto;
+import com.ss.utopia.auth.dto.AccountLookupResultDto;
 import com.ss.utopia.auth.dto.CreateUserAccountDto;
 import com.ss.utopia.auth.dto.NewPasswordDto;
+import com.ss.utopia.auth.dto.ResendConfirmationDto;
 import com.ss.utopia.auth.dto.ResetPasswordDto;
+import com.ss.utopia.auth.dto.UserAccountPageDto;
+import com.ss.utopia.auth.dto.UserAccountSummaryDto;
+import com.ss.utopia.auth.entity.AccountAction;
 import com.ss.utopia.auth.entity.UserAccount;
 import com.ss.utopia.auth.exception.DuplicateEmailException;
-import com.ss.utopia.auth.exception.EmailNotSentException;
+import com.ss.utopia.auth.exception.InvalidTokenException;
 import com.ss.utopia.auth.exception.NoSuchAccountActionToken;
-import com.ss.utopia.auth.exception.NoSuchUserAccountException;
+import com.ss.utopia.auth.exception.PasswordResetCapacityExceededException;
+import com.ss.utopia.auth.metrics.AuthMetrics;
 import com.ss.utopia.auth.repository.UserAccountRepository;
+import com.ss.utopia.auth.security.JwtTokenEngine;
 import com.ss.utopia.auth.security.SecurityConstants;
+import com.ss.utopia.auth.security.VerifiedTokenCache;
+import com.ss.utopia.auth.service.PasswordResetRequestQueue;
 import com.ss.utopia.auth.service.PasswordResetService;
+import com.ss.utopia.auth.service.RefreshTokenService;
 import com.ss.utopia.auth.service.UserAccountService;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
 @WebMvcTest(UserAccountController.class)
 class UserAccountControllerTest {
@@ -53,9 +83,24 @@ class UserAccountControllerTest {
   @MockBean
   PasswordResetService passwordResetService;
 
+  @MockBean
+  PasswordResetRequestQueue passwordResetRequestQueue;
+
   @MockBean
   SecurityConstants securityConstants;
 
+  @MockBean
+  JwtTokenEngine jwtTokenEngine;
+
+  @MockBean
+  VerifiedTokenCache verifiedTokenCache;
+
+  @MockBean
+  RefreshTokenService refreshTokenService;
+
+  @MockBean
+  AuthMetrics authMetrics;
+
   private MockMvc mvc;
 
   @BeforeEach
@@ -76,6 +121,114 @@ class UserAccountControllerTest {
         .build();
   }
 
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void test_getAccountPage_CapsLimitAndReturnsCursor() throws Exception {
+    var cursor = UUID.randomUUID();
+    when(userAccountService.getAccountPage(null, 1000))
+        .thenReturn(new UserAccountPageDto(List.of(), cursor));
+
+    mvc.perform(
+        get(EndpointConstants.API_V_0_1_ACCOUNTS + "/page")
+            .param("limit", "5000"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.nextCursor").value(cursor.toString()));
+  }
+
+  @Test
+  @WithMockUser(roles = "SERVICE")
+  void test_lookupAccounts_AnswersInJsonOrCbor() throws Exception {
+    var found = UserAccountSummaryDto.builder().id(UUID.randomUUID()).email("a@test.com").build();
+    var missing = UUID.randomUUID();
+    when(userAccountService.lookupAccounts(List.of(found.getId(), missing), List.of()))
+        .thenReturn(new AccountLookupResultDto(List.of(found), List.of(missing), List.of()));
+    var lookup = AccountLookupDto.builder().ids(List.of(found.getId(), missing)).build();
+
+    mvc.perform(
+        post(EndpointConstants.API_V_0_1_ACCOUNTS + "/lookup")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(jsonMapper.writeValueAsString(lookup)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.accounts[0].id").value(found.getId().toString()))
+        .andExpect(jsonPath("$.accounts[0].password").doesNotExist())
+        .andExpect(jsonPath("$.missingIds[0]").value(missing.toString()));
+
+    var cborMapper = new CBORMapper();
+    var cbor = mvc.perform(
+        post(EndpointConstants.API_V_0_1_ACCOUNTS + "/lookup")
+            .contentType(MediaType.APPLICATION_CBOR)
+            .accept(MediaType.APPLICATION_CBOR)
+            .content(cborMapper.writeValueAsBytes(lookup)))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+        .andReturn()
+        .getResponse()
+        .getContentAsByteArray();
+    // UUIDs are encoded as 16 byte binaries rather than 36 character strings
+    var result = cborMapper.readValue(cbor, AccountLookupResultDto.class);
+    assertEquals(found, result.getAccounts().get(0));
+    assertEquals(List.of(missing), result.getMissingIds());
+  }
+
+  @Test
+  void test_cborConverter_SharesBootJacksonSettings() {
+    var cborMapper = wac.getBean(RequestMappingHandlerAdapter.class)
+        .getMessageConverters()
+        .stream()
+        .filter(MappingJackson2CborHttpMessageConverter.class::isInstance)
+        .map(converter -> ((MappingJackson2CborHttpMessageConverter) converter).getObjectMapper())
+        .findFirst()
+        .orElseThrow();
+
+    // Boot turns date timestamps off; a default CBOR mapper would leave them on
+    assertFalse(cborMapper.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+    // the builder is prototype scoped, so the JSON mapper keeps its own factory
+    assertFalse(wac.getBean(ObjectMapper.class).getFactory() instanceof CBORFactory);
+  }
+
+  @Test
+  @WithMockUser(roles = "CUSTOMER")
+  void test_lookupAccounts_ForbiddenForCustomers() throws Exception {
+    mvc.perform(
+        post(EndpointConstants.API_V_0_1_ACCOUNTS + "/lookup")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"emails\": [\"a@test.com\"]}"))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void test_exportAccounts_WritesOneJsonObjectPerLine() throws Exception {
+    var first = UserAccountSummaryDto.builder().id(UUID.randomUUID()).build();
+    var second = UserAccountSummaryDto.builder().id(UUID.randomUUID()).build();
+    doAnswer(invocation -> {
+      Consumer<UserAccountSummaryDto> consumer = invocation.getArgument(0);
+      consumer.accept(first);
+      consumer.accept(second);
+      return null;
+    }).when(userAccountService).forEachAccountSummary(any());
+
+    var result = mvc.perform(get(EndpointConstants.API_V_0_1_ACCOUNTS + "/export"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    var body = mvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+    var lines = body.split("\n");
+    assertEquals(2, lines.length);
+    assertEquals(second.getId().toString(), jsonMapper.readTree(lines[1]).get("id").asText());
+  }
+
+  @Test
+  void test_exportAccounts_ForbiddenWithoutAdminRole() throws Exception {
+    mvc.perform(get(EndpointConstants.API_V_0_1_ACCOUNTS + "/export"))
+        .andExpect(status().isForbidden());
+  }
+
   @Test
   void test_createAccount_StatusIsCreatedAndHeaderContainsLocation() throws Exception {
     var createDto = CreateUserAccountDto.builder()
@@ -132,7 +285,7 @@ class UserAccountControllerTest {
   void test_confirmAccountRegistration_ReturnsNotFoundOnTokenNotFound() throws Exception {
     doThrow(NoSuchAccountActionToken.class)
         .when(userAccountService)
-        .confirmAccountRegistration(any(UUID.class));
+        .confirmAccountRegistration(anyString());
 
     mvc.perform(
         put(EndpointConstants.API_V_0_1_ACCOUNTS + "/confirm/" + UUID.randomUUID()))
@@ -141,64 +294,66 @@ class UserAccountControllerTest {
 
   @Test
   void test_confirmAccountRegistration_ReturnsBadRequestOnInvalidToken() throws Exception {
+    doThrow(new InvalidTokenException(AccountAction.CONFIRMATION, UUID.randomUUID()))
+        .when(userAccountService)
+        .confirmAccountRegistration("1");
+
     mvc.perform(
         put(EndpointConstants.API_V_0_1_ACCOUNTS + "/confirm/1"))
         .andExpect(status().isBadRequest());
   }
 
   @Test
-  void test_addPasswordReset_StatusIs200MeaningEntryCreatedAndEmailSent() throws Exception {
-    ResetPasswordDto resetPasswordDto = ResetPasswordDto.builder()
+  void test_resendAccountConfirmation_StatusIs202() throws Exception {
+    var dto = ResendConfirmationDto.builder()
         .email("test@test.com")
         .build();
 
-    String jsonDto = jsonMapper.writeValueAsString(resetPasswordDto);
-    String token = UUID.randomUUID().toString();
-
-    when(passwordResetService.addPasswordReset(any(ResetPasswordDto.class))).thenReturn(token);
-
     mvc.perform(
-        post(EndpointConstants.API_V_0_1_ACCOUNTS + "/password-reset")
+        post(EndpointConstants.API_V_0_1_ACCOUNTS + "/confirm/resend")
             .contentType(MediaType.APPLICATION_JSON)
-            .content(jsonDto))
-        .andExpect(status().isOk());
+            .content(jsonMapper.writeValueAsString(dto)))
+        .andExpect(status().isAccepted());
+
+    verify(userAccountService).resendAccountConfirmation("test@test.com");
   }
 
   @Test
-  void test_addPasswordReset_StatusIs404MeaningEmailDoesNotExistInUserAccounts() throws Exception {
+  void test_addPasswordReset_StatusIs202MeaningRequestQueued() throws Exception {
     ResetPasswordDto resetPasswordDto = ResetPasswordDto.builder()
-        .email("doesnotexist@email.com")
+        .email("test@test.com")
         .build();
 
     String jsonDto = jsonMapper.writeValueAsString(resetPasswordDto);
 
-    doThrow(NoSuchUserAccountException.class)
-        .when(passwordResetService)
-        .addPasswordReset(any(ResetPasswordDto.class));
-
     mvc.perform(
         post(EndpointConstants.API_V_0_1_ACCOUNTS + "/password-reset")
             .contentType(MediaType.APPLICATION_JSON)
             .content(jsonDto))
-        .andExpect(status().isNotFound());
+        .andExpect(status().isAccepted());
+
+    verify(passwordResetRequestQueue).submit(any(ResetPasswordDto.class));
+    verify(passwordResetService, never()).addPasswordReset(any(ResetPasswordDto.class));
   }
 
   @Test
-  void test_addPasswordReset_StatusIs500MeaningEmailWasNotSent() throws Exception {
+  void test_addPasswordReset_StatusIs503WithRetryAfterWhenQueueIsFull() throws Exception {
     ResetPasswordDto resetPasswordDto = ResetPasswordDto.builder()
         .email("test@email.com")
         .build();
 
     String jsonDto = jsonMapper.writeValueAsString(resetPasswordDto);
 
-    when(passwordResetService.addPasswordReset(any(resetPasswordDto.getClass())))
-        .thenThrow(new EmailNotSentException(null, null));
+    doThrow(new PasswordResetCapacityExceededException(5))
+        .when(passwordResetRequestQueue)
+        .submit(any(ResetPasswordDto.class));
 
     mvc.perform(
         post(EndpointConstants.API_V_0_1_ACCOUNTS + "/password-reset")
             .contentType(MediaType.APPLICATION_JSON)
             .content(jsonDto))
-        .andExpect(status().is5xxServerError());
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
   }
 
   @Test
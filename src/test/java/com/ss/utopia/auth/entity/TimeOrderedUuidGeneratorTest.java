@@ -0,0 +1,33 @@
+package com.ss.utopia.auth.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class TimeOrderedUuidGeneratorTest {
+
+  @Test
+  void test_generate_IsVersion7AndSortsByTimestampAsStoredBytes() {
+    var earlier = TimeOrderedUuidGenerator.generate(1_600_000_000_000L);
+    var later = TimeOrderedUuidGenerator.generate(1_600_000_000_001L);
+
+    assertEquals(7, earlier.version());
+    assertEquals(2, earlier.variant());
+    assertEquals(1_600_000_000_000L, earlier.getMostSignificantBits() >>> 16);
+    // BINARY(16) columns compare as unsigned bytes
+    assertTrue(Arrays.compareUnsigned(toBytes(earlier), toBytes(later)) < 0);
+    assertNotEquals(earlier, TimeOrderedUuidGenerator.generate(1_600_000_000_000L));
+  }
+
+  private static byte[] toBytes(UUID uuid) {
+    return ByteBuffer.allocate(16)
+        .putLong(uuid.getMostSignificantBits())
+        .putLong(uuid.getLeastSignificantBits())
+        .array();
+  }
+}
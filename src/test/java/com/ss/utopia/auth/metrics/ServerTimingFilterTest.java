@@ -0,0 +1,57 @@
+package com.ss.utopia.auth.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ss.utopia.auth.metrics.ServerTiming.Phase;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ServerTimingFilterTest {
+
+  private static final Pattern HEADER = Pattern.compile(
+      "db;dur=\\d+\\.\\d{2}, bcrypt;dur=(\\d+\\.\\d{2}), jwt;dur=\\d+\\.\\d{2},"
+          + " total;dur=\\d+\\.\\d{2}");
+
+  ServerTimingFilter filter = new ServerTimingFilter();
+
+  @Test
+  void test_doFilter_AddsHeaderBeforeResponseIsCommitted() throws Exception {
+    var response = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("POST", "/authenticate"), response,
+                    (req, res) -> {
+                      assertTrue(ServerTiming.isActive());
+                      ServerTiming.record(Phase.BCRYPT, 48_310_000);
+                      res.getWriter().write("{}");
+                      res.flushBuffer();
+                    });
+
+    assertTrue(response.isCommitted());
+    var matcher = HEADER.matcher(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER));
+    assertTrue(matcher.matches());
+    assertEquals("48.31", matcher.group(1));
+    assertFalse(ServerTiming.isActive());
+  }
+
+  @Test
+  void test_doFilter_AddsHeaderWhenChainReturnsUncommitted() throws Exception {
+    var response = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/v0.1/accounts"), response,
+                    (req, res) -> ServerTiming.record(Phase.DB, 1_000_000));
+
+    assertTrue(HEADER.matcher(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER))
+                   .matches());
+  }
+
+  @Test
+  void test_record_IsIgnoredOutsideTimedRequest() {
+    ServerTiming.record(Phase.JWT, 1_000_000);
+
+    assertFalse(ServerTiming.isActive());
+  }
+}
@@ -0,0 +1,74 @@
+package com.ss.utopia.auth.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ss.utopia.auth.entity.AccountAction;
+import com.ss.utopia.auth.entity.AccountActionToken;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+@DataJpaTest
+class AccountActionTokenRepositoryTest {
+
+  @Autowired
+  AccountActionTokenRepository accountActionTokenRepository;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  final ZonedDateTime now = ZonedDateTime.now();
+
+  @Test
+  void test_consume_SucceedsOnceForMatchingUnexpiredToken() {
+    var ownerId = UUID.randomUUID();
+    var token = save(ownerId, AccountAction.CONFIRMATION, now.plusMinutes(60), true).getToken();
+
+    assertEquals(ownerId,
+                 accountActionTokenRepository.findOwnerAccountIdByToken(token).orElseThrow());
+    assertEquals(0, accountActionTokenRepository.consume(token, AccountAction.DELETION, now));
+    assertEquals(0, accountActionTokenRepository.consume(token, AccountAction.CONFIRMATION,
+                                                         now.plusMinutes(61)));
+    assertEquals(1, accountActionTokenRepository.consume(token, AccountAction.CONFIRMATION, now));
+    assertEquals(0, accountActionTokenRepository.consume(token, AccountAction.CONFIRMATION, now));
+
+    entityManager.clear();
+    var consumed = accountActionTokenRepository.findById(token).orElseThrow();
+    assertFalse(consumed.isActive());
+    assertFalse(consumed.getExpiresAt().isAfter(now));
+  }
+
+  @Test
+  void test_findActiveTokens_ReturnsLongestLivedUnusedTokenOfOwnerAndAction() {
+    var ownerId = UUID.randomUUID();
+    save(ownerId, AccountAction.CONFIRMATION, now.plusMinutes(10), true);
+    var longest = save(ownerId, AccountAction.CONFIRMATION, now.plusMinutes(50), true);
+    save(ownerId, AccountAction.CONFIRMATION, now.plusMinutes(60), false);
+    save(ownerId, AccountAction.DELETION, now.plusMinutes(60), true);
+    save(UUID.randomUUID(), AccountAction.CONFIRMATION, now.plusMinutes(60), true);
+
+    var found = accountActionTokenRepository.findActiveTokens(
+        ownerId, AccountAction.CONFIRMATION, now.plusMinutes(30), PageRequest.of(0, 1));
+
+    assertEquals(1, found.size());
+    assertEquals(longest.getToken(), found.get(0).getToken());
+    assertTrue(accountActionTokenRepository.findActiveTokens(
+        ownerId, AccountAction.CONFIRMATION, now.plusMinutes(55), PageRequest.of(0, 1)).isEmpty());
+  }
+
+  private AccountActionToken save(UUID ownerId, AccountAction action, ZonedDateTime expiresAt,
+                                  boolean active) {
+    return accountActionTokenRepository.saveAndFlush(AccountActionToken.builder()
+                                                         .ownerAccountId(ownerId)
+                                                         .action(action)
+                                                         .expiresAt(expiresAt)
+                                                         .active(active)
+                                                         .build());
+  }
+}
@@ -0,0 +1,100 @@
+package com.ss.utopia.auth.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ss.utopia.auth.entity.UserAccount;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+
+@DataJpaTest
+class UserAccountRepositoryTest {
+
+  @Autowired
+  UserAccountRepository userAccountRepository;
+
+  @Test
+  void test_findByEmail_IgnoresCaseAndSurroundingWhitespace() {
+    var saved = userAccountRepository.saveAndFlush(UserAccount.builder()
+                                                       .email("Mixed.Case@Test.com")
+                                                       .password("hash")
+                                                       .build());
+
+    assertEquals(7, saved.getId().version());
+    assertEquals("mixed.case@test.com", saved.getNormalizedEmail());
+    assertEquals(saved.getId(),
+                 userAccountRepository.findByEmail(" MIXED.case@test.COM ").orElseThrow().getId());
+  }
+
+  @Test
+  void test_findSummariesAfter_PagesByIdWithoutLoadingEntities() {
+    for (var i = 0; i < 5; i++) {
+      userAccountRepository.save(UserAccount.builder()
+                                     .email("page" + i + "@test.com")
+                                     .password("hash")
+                                     .build());
+    }
+    userAccountRepository.flush();
+
+    var first = userAccountRepository.findSummaries(PageRequest.of(0, 3));
+    var rest = userAccountRepository.findSummariesAfter(first.get(2).getId(),
+                                                        PageRequest.of(0, 3));
+
+    assertEquals(3, first.size());
+    assertEquals(2, rest.size());
+    var ids = new HashSet<UUID>();
+    first.forEach(summary -> ids.add(summary.getId()));
+    rest.forEach(summary -> ids.add(summary.getId()));
+    assertEquals(5, ids.size());
+  }
+
+  @Test
+  void test_findSummariesIn_MatchesIdsAndNormalizedEmails() {
+    var first = userAccountRepository.save(UserAccount.builder()
+                                               .email("first@test.com")
+                                               .password("hash")
+                                               .build());
+    var second = userAccountRepository.save(UserAccount.builder()
+                                                .email("Second@Test.com")
+                                                .password("hash")
+                                                .build());
+    userAccountRepository.flush();
+
+    var byId = userAccountRepository.findSummariesByIdIn(List.of(first.getId(),
+                                                                 UUID.randomUUID()));
+    var byEmail = userAccountRepository.findSummariesByNormalizedEmailIn(
+        List.of("second@test.com", "missing@test.com"));
+
+    assertEquals(1, byId.size());
+    assertEquals(first.getId(), byId.get(0).getId());
+    assertEquals(1, byEmail.size());
+    assertEquals(second.getId(), byEmail.get(0).getId());
+  }
+
+  @Test
+  void test_saveAndFlush_RejectsEmailsDifferingOnlyInCase() {
+    userAccountRepository.saveAndFlush(UserAccount.builder()
+                                           .email("duplicate@test.com")
+                                           .password("hash")
+                                           .build());
+
+    var duplicate = UserAccount.builder()
+        .email("Duplicate@Test.com")
+        .password("hash")
+        .build();
+    var ex = assertThrows(DataIntegrityViolationException.class,
+                          () -> userAccountRepository.saveAndFlush(duplicate));
+    // the service maps only this constraint to a duplicate email
+    var constraint = ((ConstraintViolationException) ex.getCause()).getConstraintName();
+    assertTrue(constraint.toLowerCase(Locale.ROOT).contains(UserAccount.NORMALIZED_EMAIL_KEY));
+  }
+}
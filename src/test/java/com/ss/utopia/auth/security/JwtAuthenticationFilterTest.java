@@ -2,6 +2,7 @@ package com.ss.utopia.auth.security;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
@@ -12,6 +13,10 @@ import com.ss.utopia.auth.dto.AuthDto;
 import com.ss.utopia.auth.dto.AuthResponse;
 import com.ss.utopia.auth.entity.UserAccount;
 import com.ss.utopia.auth.entity.UserRole;
+import com.ss.utopia.auth.exception.HashingCapacityExceededException;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.service.RefreshTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
@@ -28,6 +33,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -43,9 +49,17 @@ class JwtAuthenticationFilterTest {
   HttpServletRequest mockRequest = Mockito.mock(HttpServletRequest.class);
   HttpServletResponse mockResponse = Mockito.mock(HttpServletResponse.class);
   ObjectMapper mockObjectMapper = Mockito.mock(ObjectMapper.class);
+  RefreshTokenService mockRefreshTokenService = Mockito.mock(RefreshTokenService.class);
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  AuthMetrics authMetrics = new AuthMetrics(meterRegistry);
   JwtAuthenticationFilter filterToTest = new JwtAuthenticationFilter(mockAuthManager,
                                                                      mockObjectMapper,
-                                                                     mockSecurityConstants);
+                                                                     mockSecurityConstants,
+                                                                     new JwtTokenEngine(
+                                                                         mockSecurityConstants,
+                                                                         authMetrics),
+                                                                     mockRefreshTokenService,
+                                                                     authMetrics);
 
   @BeforeAll
   static void beforeAll() {
@@ -173,9 +187,13 @@ class JwtAuthenticationFilterTest {
 
     var spyResponse = Mockito.spy(mockResponse);
 
+    when(mockRefreshTokenService.createRefreshToken(mockUserAccount.getId()))
+        .thenReturn("refresh-token");
+
     var expectedAuthResponse = new AuthResponse(mockUserAccount.getId(),
                                                 "Bearer " + expectedJwt,
-                                                mockSecurityConstants.getExpiresAt().getTime());
+                                                mockSecurityConstants.getExpiresAt().getTime(),
+                                                "refresh-token");
 
     var expectedAuthResponseAsJson = new ObjectMapper()
         .writeValueAsString(expectedAuthResponse);
@@ -210,4 +228,33 @@ class JwtAuthenticationFilterTest {
     Mockito.verify(spyResponse).addHeader("Authorization", "Bearer " + expectedJwt);
   }
 
+  /**
+   * When the password hashing pool is saturated the login should be rejected with a 503 and a
+   * Retry-After header instead of a generic authentication failure.
+   */
+  @Test
+  void test_unsuccessfulAuthentication_RespondsServiceUnavailableWhenHashingQueueIsFull()
+      throws Exception {
+    var mockAutDto = AuthDto.builder().email("test@test.com").password("abCD1234!@").build();
+    var mockRequestInputStream = Mockito.mock(ServletInputStream.class);
+
+    when(mockRequest.getInputStream()).thenReturn(mockRequestInputStream);
+    when(mockObjectMapper.readValue(mockRequestInputStream, AuthDto.class))
+        .thenReturn(mockAutDto);
+    when(mockAuthManager.authenticate(any()))
+        .thenThrow(new HashingCapacityExceededException(2));
+    when(mockResponse.getWriter()).thenReturn(new PrintWriter(OutputStream.nullOutputStream()));
+    when(mockRequest.getAttribute(any())).thenReturn(System.nanoTime());
+
+    var ex = assertThrows(InternalAuthenticationServiceException.class,
+                          () -> filterToTest.attemptAuthentication(mockRequest, mockResponse));
+
+    filterToTest.unsuccessfulAuthentication(mockRequest, mockResponse, ex);
+
+    Mockito.verify(mockResponse).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    Mockito.verify(mockResponse).setHeader("Retry-After", "2");
+    assertEquals(1, meterRegistry.get("utopia.auth.login").tag("outcome", "failure").timer()
+        .count());
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package com.ss.utopia.auth.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.entity.UserRole;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.security.SecurityConstants.JwtAlgorithm;
+import com.ss.utopia.auth.security.SecurityConstants.JwtKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JwtTokenEngineTest {
+
+  final Date expiresAt = new Date(System.currentTimeMillis() + 60_000L);
+
+  final UserAccount user = UserAccount.builder()
+      .id(UUID.randomUUID())
+      .email("test@test.com")
+      .userRole(UserRole.CUSTOMER)
+      .build();
+
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  SecurityConstants securityConstants;
+  JwtTokenEngine engine;
+
+  @BeforeEach
+  void beforeEach() {
+    securityConstants = new SecurityConstants();
+    securityConstants.setJwtSecret("superSecret");
+    securityConstants.setJwtIssuer("ss-utopia");
+    securityConstants.setUserIdClaimKey("userId");
+    securityConstants.setAuthorityClaimKey("Authorities");
+    engine = new JwtTokenEngine(securityConstants, new AuthMetrics(meterRegistry));
+  }
+
+  @Test
+  void test_createToken_UsesLegacySecretWithoutKeyIdWhenNoKeysConfigured() {
+    var token = engine.createToken(user, expiresAt);
+
+    var verified = JWT.require(Algorithm.HMAC512("superSecret")).build().verify(token);
+    assertNull(verified.getKeyId());
+    assertEquals(user.getEmail(), verified.getSubject());
+    assertEquals(user.getId().toString(), verified.getClaim("userId").asString());
+    assertEquals(List.of("ROLE_CUSTOMER"), verified.getClaim("Authorities").asList(String.class));
+  }
+
+  @Test
+  void test_verify_SelectsKeyByKeyId() throws Exception {
+    securityConstants.setJwtKeys(new ArrayList<>(List.of(rsaKey("rsa-1"), ecKey("ec-1"))));
+
+    securityConstants.setJwtActiveKeyId("rsa-1");
+    var rsaToken = engine.createToken(user, expiresAt);
+    securityConstants.setJwtActiveKeyId("ec-1");
+    var ecToken = engine.createToken(user, expiresAt);
+
+    assertEquals("rsa-1", engine.verify(rsaToken).getKeyId());
+    assertEquals("ec-1", engine.verify(ecToken).getKeyId());
+  }
+
+  @Test
+  void test_verify_AcceptsLegacyTokensAfterKeysAreConfigured() throws Exception {
+    var legacyToken = engine.createToken(user, expiresAt);
+
+    securityConstants.setJwtKeys(new ArrayList<>(List.of(rsaKey("rsa-1"))));
+
+    assertEquals("rsa-1", engine.getActiveKeyId());
+    assertEquals(user.getEmail(), engine.verify(legacyToken).getSubject());
+  }
+
+  @Test
+  void test_verify_RejectsTokensFromRemovedOrUnknownKeys() throws Exception {
+    securityConstants.setJwtKeys(new ArrayList<>(List.of(
+        new JwtKey("hs-1", JwtAlgorithm.HS512, "first", null, null),
+        new JwtKey("hs-2", JwtAlgorithm.HS512, "second", null, null))));
+    var rotatedOutToken = engine.createToken(user, expiresAt);
+
+    // rotate: drop the first key entirely
+    securityConstants.getJwtKeys().remove(0);
+
+    assertEquals("hs-2", engine.getActiveKeyId());
+    assertThrows(JWTVerificationException.class, () -> engine.verify(rotatedOutToken));
+
+    var forged = JWT.create()
+        .withKeyId("hs-2")
+        .withSubject(user.getEmail())
+        .sign(Algorithm.HMAC512("not the secret"));
+    assertThrows(SignatureVerificationException.class, () -> engine.verify(forged));
+  }
+
+  @Test
+  void test_getJsonWebKeySet_PublishesOnlyPublicKeys() throws Exception {
+    var rsaKey = rsaKey("rsa-1");
+    securityConstants.setJwtKeys(new ArrayList<>(List.of(
+        new JwtKey("hs-1", JwtAlgorithm.HS512, "secret", null, null), rsaKey, ecKey("ec-1"))));
+
+    var jwks = engine.getJsonWebKeySet();
+
+    assertEquals(2, jwks.getKeys().size());
+    var rsaJwk = jwks.getKeys().get(0);
+    assertEquals("RSA", rsaJwk.get("kty"));
+    assertEquals("rsa-1", rsaJwk.get("kid"));
+    assertEquals("RS256", rsaJwk.get("alg"));
+    var ecJwk = jwks.getKeys().get(1);
+    assertEquals("EC", ecJwk.get("kty"));
+    assertEquals("P-256", ecJwk.get("crv"));
+    assertEquals(32, Base64.getUrlDecoder().decode(ecJwk.get("x")).length);
+
+    // a verifier rebuilding the key from the JWK must get the configured key back
+    var decoder = Base64.getUrlDecoder();
+    var rebuilt = KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+        new BigInteger(1, decoder.decode(rsaJwk.get("n"))),
+        new BigInteger(1, decoder.decode(rsaJwk.get("e")))));
+    assertEquals(rsaKey.getPublicKey(), encode(((RSAPublicKey) rebuilt).getEncoded()));
+  }
+
+  @Test
+  void test_getJsonWebKeySet_ETagChangesWhenKeysRotate() throws Exception {
+    securityConstants.setJwtKeys(new ArrayList<>(List.of(rsaKey("rsa-1"))));
+    var before = engine.getJsonWebKeySet();
+    assertEquals(before.getEtag(), engine.getJsonWebKeySet().getEtag());
+
+    securityConstants.getJwtKeys().add(rsaKey("rsa-2"));
+
+    assertNotEquals(before.getEtag(), engine.getJsonWebKeySet().getEtag());
+  }
+
+  private JwtKey rsaKey(String id) throws Exception {
+    var generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    var pair = generator.generateKeyPair();
+    return new JwtKey(id, JwtAlgorithm.RS256, null,
+                      encode(pair.getPublic().getEncoded()),
+                      encode(pair.getPrivate().getEncoded()));
+  }
+
+  private JwtKey ecKey(String id) throws Exception {
+    var generator = KeyPairGenerator.getInstance("EC");
+    generator.initialize(256);
+    var pair = generator.generateKeyPair();
+    return new JwtKey(id, JwtAlgorithm.ES256, null,
+                      encode(pair.getPublic().getEncoded()),
+                      encode(pair.getPrivate().getEncoded()));
+  }
+
+  private String encode(byte[] der) {
+    return Base64.getEncoder().encodeToString(der);
+  }
+}
@@ -0,0 +1,105 @@
+package com.ss.utopia.auth.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ss.utopia.auth.exception.HashingCapacityExceededException;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PasswordHashingEngineTest {
+
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  PasswordHashingEngine engine;
+
+  @BeforeEach
+  void beforeEach() {
+    engine = new PasswordHashingEngine(new AuthMetrics(meterRegistry));
+    engine.setThreads(1);
+    engine.setQueueCapacity(1);
+    engine.setStrength(4);
+    engine.setRetryAfterSeconds(3);
+    engine.postConstruct();
+  }
+
+  @AfterEach
+  void afterEach() {
+    engine.preDestroy();
+  }
+
+  @Test
+  void test_encode_ProducesHashThatMatches() {
+    var hash = engine.encode("abCD1234!@");
+
+    assertNotEquals("abCD1234!@", hash);
+    assertTrue(engine.matches("abCD1234!@", hash));
+    assertFalse(engine.matches("wrong password", hash));
+    assertEquals(1, meterRegistry.get("utopia.auth.bcrypt").tag("operation", "encode").timer()
+        .count());
+    assertEquals(2, meterRegistry.get("utopia.auth.bcrypt").tag("operation", "matches").timer()
+        .count());
+  }
+
+  @Test
+  void test_matches_EmitsFlightRecorderEventWithOutcome() throws Exception {
+    var hash = engine.encode("abCD1234!@");
+    var file = Files.createTempFile("password-match", ".jfr");
+    try (var recording = new Recording()) {
+      recording.enable("com.ss.utopia.auth.PasswordMatch");
+      recording.start();
+      engine.matches("abCD1234!@", hash);
+      engine.matches("wrong password", hash);
+      recording.stop();
+      recording.dump(file);
+
+      var events = RecordingFile.readAllEvents(file);
+      assertEquals(2, events.size());
+      assertTrue(events.get(0).getBoolean("matched"));
+      assertFalse(events.get(1).getBoolean("matched"));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void test_submit_ThrowsHashingCapacityExceededExceptionWhenQueueIsFull() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+
+    // occupy the only worker thread, then the only queue slot
+    var running = CompletableFuture.runAsync(() -> engine.submit(() -> {
+      started.countDown();
+      return release.await(5, TimeUnit.SECONDS);
+    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    var queued = CompletableFuture.runAsync(() -> engine.submit(() -> true));
+    while (engine.getQueueDepth() == 0) {
+      Thread.onSpinWait();
+    }
+
+    assertEquals(1, meterRegistry.get("executor.queued").tag("name", "password.hashing").gauge()
+        .value());
+    assertEquals(1, meterRegistry.get("executor.active").tag("name", "password.hashing").gauge()
+        .value());
+
+    var ex = assertThrows(HashingCapacityExceededException.class,
+                          () -> engine.encode("abCD1234!@"));
+    assertEquals(3, ex.getRetryAfterSeconds());
+
+    release.countDown();
+    running.get(5, TimeUnit.SECONDS);
+    queued.get(5, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,98 @@
+package com.ss.utopia.auth.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.entity.UserRole;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class UserDetailsCacheTest {
+
+  final UserAccount account = UserAccount.builder()
+      .id(UUID.randomUUID())
+      .email("test@test.com")
+      .password("hash")
+      .userRole(UserRole.CUSTOMER)
+      .confirmed(true)
+      .build();
+
+  final AtomicInteger loads = new AtomicInteger();
+
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  UserDetailsCache cache;
+
+  @BeforeEach
+  void beforeEach() {
+    cache = new UserDetailsCache(new AuthMetrics(meterRegistry));
+    cache.postConstruct();
+  }
+
+  Optional<UserAccount> load(String email) {
+    loads.incrementAndGet();
+    return account.getEmail().equals(email) ? Optional.of(account) : Optional.empty();
+  }
+
+  @Test
+  void test_get_LoadsOnceAndReturnsDetachedCopies() {
+    var first = cache.get(account.getEmail(), this::load).orElseThrow();
+    var second = cache.get(account.getEmail(), this::load).orElseThrow();
+
+    assertEquals(1, loads.get());
+    assertNotSame(account, first);
+    assertNotSame(first, second);
+    assertEquals(account.getPassword(), second.getPassword());
+    assertEquals(account.getAuthorities(), second.getAuthorities());
+    assertTrue(second.isConfirmed());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "userDetails", "result", "miss")
+        .functionCounter().count());
+  }
+
+  @Test
+  void test_get_DoesNotCacheMissingAccounts() {
+    assertTrue(cache.get("missing@test.com", this::load).isEmpty());
+    assertTrue(cache.get("missing@test.com", this::load).isEmpty());
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void test_evict_ReloadsAfterAccountChanges() {
+    cache.get(account.getEmail(), this::load);
+    account.setPassword("new hash");
+
+    cache.evict(" TEST@test.com");
+
+    assertEquals("new hash", cache.get(account.getEmail(), this::load).orElseThrow().getPassword());
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void test_evict_WaitsForCommitInsideTransaction() {
+    cache.get(account.getEmail(), this::load);
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      cache.evict(account.getEmail());
+      cache.get(account.getEmail(), this::load);
+      assertEquals(1, loads.get());
+
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    cache.get(account.getEmail(), this::load);
+    assertEquals(2, loads.get());
+  }
+}
@@ -0,0 +1,101 @@
+package com.ss.utopia.auth.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.entity.UserRole;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.security.SecurityConstants.JwtAlgorithm;
+import com.ss.utopia.auth.security.SecurityConstants.JwtKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VerifiedTokenCacheTest {
+
+  final UserAccount user = UserAccount.builder()
+      .id(UUID.randomUUID())
+      .email("test@test.com")
+      .userRole(UserRole.CUSTOMER)
+      .build();
+
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  SecurityConstants securityConstants;
+  JwtTokenEngine engine;
+  VerifiedTokenCache cache;
+
+  @BeforeEach
+  void beforeEach() {
+    securityConstants = new SecurityConstants();
+    securityConstants.setJwtSecret("superSecret");
+    securityConstants.setJwtIssuer("ss-utopia");
+    securityConstants.setUserIdClaimKey("userId");
+    securityConstants.setAuthorityClaimKey("Authorities");
+    var authMetrics = new AuthMetrics(meterRegistry);
+    engine = new JwtTokenEngine(securityConstants, authMetrics);
+    cache = new VerifiedTokenCache(engine, securityConstants, authMetrics);
+    cache.postConstruct();
+  }
+
+  @Test
+  void test_getOrVerify_ReturnsCachedAuthenticationOnRepeatRequests() {
+    var token = engine.createToken(user, new Date(System.currentTimeMillis() + 60_000L));
+
+    var first = cache.getOrVerify(token);
+    var second = cache.getOrVerify(token);
+
+    // the cached principal is shared, the mutable authentication is not
+    assertNotSame(first, second);
+    assertSame(first.getPrincipal(), second.getPrincipal());
+    assertEquals(user.getId(), ((JwtPrincipal) first.getPrincipal()).getUserId());
+    assertEquals("ROLE_CUSTOMER", first.getAuthorities().iterator().next().getAuthority());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "verifiedTokens", "result", "hit")
+        .functionCounter().count());
+    assertEquals(1, meterRegistry.get("utopia.auth.jwt").tag("operation", "verify").timer().count());
+  }
+
+  @Test
+  void test_getOrVerify_ReverifiesAfterKeyRotation() {
+    var token = engine.createToken(user, new Date(System.currentTimeMillis() + 60_000L));
+    cache.getOrVerify(token);
+
+    // replacing the legacy secret invalidates every token signed with it
+    securityConstants.setJwtSecret(null);
+    securityConstants.setJwtKeys(new ArrayList<>(List.of(
+        new JwtKey("hs-1", JwtAlgorithm.HS512, "other", null, null))));
+
+    assertThrows(SignatureVerificationException.class, () -> cache.getOrVerify(token));
+  }
+
+  @Test
+  void test_getOrVerify_DoesNotCacheExpiredTokens() {
+    var token = engine.createToken(user, new Date(System.currentTimeMillis() - 1_000L));
+
+    assertThrows(TokenExpiredException.class, () -> cache.getOrVerify(token));
+    assertThrows(TokenExpiredException.class, () -> cache.getOrVerify(token));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void test_getOrVerify_ReturnsNullWithoutSubject() {
+    var token = JWT.create()
+        .withExpiresAt(new Date(System.currentTimeMillis() + 60_000L))
+        .sign(Algorithm.HMAC512("superSecret"));
+
+    assertNull(cache.getOrVerify(token));
+  }
+}
@@ -1,18 +1,20 @@
 package com.ss.utopia.auth.service;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 import com.ss.utopia.auth.entity.AccountAction;
 import com.ss.utopia.auth.entity.AccountActionToken;
+import com.ss.utopia.auth.entity.UserAccount;
 import com.ss.utopia.auth.exception.InvalidTokenException;
 import com.ss.utopia.auth.exception.NoSuchAccountActionToken;
 import com.ss.utopia.auth.repository.AccountActionTokenRepository;
+import com.ss.utopia.auth.repository.UserAccountRepository;
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,8 +26,10 @@ public class AccountActionTokenServiceImplTests {
   AccountActionTokenRepository accountActionTokenRepository =
       Mockito.mock(AccountActionTokenRepository.class);
 
+  UserAccountRepository userAccountRepository = Mockito.mock(UserAccountRepository.class);
+
   AccountActionTokenService service =
-      new AccountActionTokenServiceImpl(accountActionTokenRepository);
+      new AccountActionTokenServiceImpl(accountActionTokenRepository, userAccountRepository);
 
   ZonedDateTime tokenCreation = ZonedDateTime.now();
 
@@ -35,88 +39,90 @@ public class AccountActionTokenServiceImplTests {
       .active(true)
       .action(AccountAction.CONFIRMATION)
       .creation(tokenCreation)
-      .build();
-
-  AccountActionToken mockInactiveConfirmationToken = AccountActionToken.builder()
-      .token(mockValidConfirmationToken.getToken())
-      .ownerAccountId(UUID.randomUUID())
-      .active(false)
-      .action(AccountAction.CONFIRMATION)
-      .creation(tokenCreation)
-      .build();
-
-  AccountActionToken mockExpiredConfirmationToken = AccountActionToken.builder()
-      .token(mockValidConfirmationToken.getToken())
-      .ownerAccountId(UUID.randomUUID())
-      .active(true)
-      .action(AccountAction.CONFIRMATION)
-      .creation(tokenCreation.minusMinutes(AccountAction.CONFIRMATION.getMinutesToLive() + 1))
+      .expiresAt(tokenCreation.plusMinutes(AccountAction.CONFIRMATION.getMinutesToLive()))
       .build();
 
   @BeforeEach
   void beforeEach() {
-    Mockito.reset(accountActionTokenRepository);
+    Mockito.reset(accountActionTokenRepository, userAccountRepository);
   }
 
   @Test
-  void test_getToken_ReturnsExpectedToken() {
-    when(accountActionTokenRepository.findById(mockValidConfirmationToken.getToken()))
-        .thenReturn(Optional.of(mockValidConfirmationToken));
-
-    var result = service.getToken(mockValidConfirmationToken.getToken());
-
-    assertEquals(mockValidConfirmationToken, result);
-  }
+  void test_consumeToken_ReturnsOwnerOnlyWhileConditionalUpdateWins() {
+    var token = mockValidConfirmationToken.getToken();
+    when(accountActionTokenRepository.findOwnerAccountIdByToken(token))
+        .thenReturn(Optional.of(mockValidConfirmationToken.getOwnerAccountId()));
+    when(accountActionTokenRepository.consume(eq(token), eq(AccountAction.CONFIRMATION), any()))
+        .thenReturn(1, 0);
+
+    assertEquals(mockValidConfirmationToken.getOwnerAccountId(),
+                 service.consumeToken(token.toString(), AccountAction.CONFIRMATION));
+    assertThrows(InvalidTokenException.class,
+                 () -> service.consumeToken(token.toString(), AccountAction.CONFIRMATION));
 
-  @Test
-  void test_getToken_ThrowsNoSuchAccountActionTokenOnNotFound() {
-    when(accountActionTokenRepository.findById(any()))
+    when(accountActionTokenRepository.findOwnerAccountIdByToken(token))
         .thenReturn(Optional.empty());
-
     assertThrows(NoSuchAccountActionToken.class,
-                 () -> service.getToken(mockValidConfirmationToken.getToken()));
+                 () -> service.consumeToken(token.toString(), AccountAction.CONFIRMATION));
   }
 
   @Test
-  void test_validateToken_DoesNotThrowExceptionOnValidToken() {
-    assertDoesNotThrow(() -> service.validateToken(mockValidConfirmationToken));
+  void test_consumeToken_VerifiesSignedTokenWithoutLookupAndOnlyOnce() {
+    var statelessService = new AccountActionTokenServiceImpl(accountActionTokenRepository,
+                                                             userAccountRepository);
+    statelessService.setStateless(true);
+    statelessService.setSecret("actionTokenSecret");
+    statelessService.postConstruct();
+    var owner = UserAccount.builder()
+        .id(UUID.randomUUID())
+        .tokenVersion(3)
+        .build();
+    when(userAccountRepository.incrementTokenVersion(owner.getId(), 3)).thenReturn(1, 0);
+
+    var token = statelessService.createToken(owner, AccountAction.CONFIRMATION);
+
+    assertEquals(owner.getId(), statelessService.consumeToken(token, AccountAction.CONFIRMATION));
+    assertThrows(InvalidTokenException.class,
+                 () -> statelessService.consumeToken(token, AccountAction.CONFIRMATION));
+    // signed for another action, or altered
+    assertThrows(NoSuchAccountActionToken.class,
+                 () -> statelessService.consumeToken(token, AccountAction.DELETION));
+    var tampered = (token.charAt(0) == 'A' ? 'B' : 'A') + token.substring(1);
+    assertThrows(NoSuchAccountActionToken.class,
+                 () -> statelessService.consumeToken(tampered, AccountAction.CONFIRMATION));
+    Mockito.verifyNoInteractions(accountActionTokenRepository);
   }
 
   @Test
-  void test_validateToken_ThrowsInvalidTokenExceptionOnInactiveToken() {
-    when(accountActionTokenRepository.findById(any()))
-        .thenReturn(Optional.of(mockInactiveConfirmationToken));
-
-    assertThrows(InvalidTokenException.class,
-                 () -> service.validateToken(mockInactiveConfirmationToken));
-
-    assertThrows(InvalidTokenException.class,
-                 () -> service.getAndValidateToken(mockInactiveConfirmationToken.getToken()));
+  void test_getOrCreateToken_ReusesTokenWithEnoughTimeLeft() {
+    var owner = UserAccount.builder().id(mockValidConfirmationToken.getOwnerAccountId()).build();
+    when(accountActionTokenRepository.findActiveTokens(eq(owner.getId()),
+                                                       eq(AccountAction.CONFIRMATION),
+                                                       any(), any()))
+        .thenReturn(List.of(mockValidConfirmationToken));
+
+    assertEquals(mockValidConfirmationToken.getToken().toString(),
+                 service.getOrCreateToken(owner, AccountAction.CONFIRMATION));
+    Mockito.verify(accountActionTokenRepository, Mockito.never()).save(any());
   }
 
   @Test
-  void test_validateToken_ThrowsInvalidTokenExceptionOnExpiredToken() {
-    when(accountActionTokenRepository.findById(any()))
-        .thenReturn(Optional.of(mockExpiredConfirmationToken));
+  void test_getToken_ReturnsExpectedToken() {
+    when(accountActionTokenRepository.findById(mockValidConfirmationToken.getToken()))
+        .thenReturn(Optional.of(mockValidConfirmationToken));
 
-    assertThrows(InvalidTokenException.class,
-                 () -> service.validateToken(mockExpiredConfirmationToken));
+    var result = service.getToken(mockValidConfirmationToken.getToken());
 
-    assertThrows(InvalidTokenException.class,
-                 () -> service.getAndValidateToken(mockExpiredConfirmationToken.getToken()));
+    assertEquals(mockValidConfirmationToken, result);
   }
 
   @Test
-  void test_getAndValidateToken_ReturnsValidToken() {
-    when(accountActionTokenRepository.findById(mockValidConfirmationToken.getToken()))
-        .thenReturn(Optional.of(mockValidConfirmationToken));
+  void test_getToken_ThrowsNoSuchAccountActionTokenOnNotFound() {
+    when(accountActionTokenRepository.findById(any()))
+        .thenReturn(Optional.empty());
 
-    try {
-      var result = service.getAndValidateToken(mockValidConfirmationToken.getToken());
-      assertEquals(mockValidConfirmationToken, result);
-    } catch (InvalidTokenException ex) {
-      fail(ex);
-    }
+    assertThrows(NoSuchAccountActionToken.class,
+                 () -> service.getToken(mockValidConfirmationToken.getToken()));
   }
 
   @Test
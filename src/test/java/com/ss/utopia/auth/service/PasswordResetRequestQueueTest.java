@@ -0,0 +1,125 @@
+package com.ss.utopia.auth.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ss.utopia.auth.dto.ResetPasswordDto;
+import com.ss.utopia.auth.exception.NoSuchUserAccountException;
+import com.ss.utopia.auth.exception.PasswordResetCapacityExceededException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class PasswordResetRequestQueueTest {
+
+  PasswordResetService passwordResetService = Mockito.mock(PasswordResetService.class);
+  PasswordResetRequestQueue queue;
+
+  @BeforeEach
+  void beforeEach() {
+    queue = new PasswordResetRequestQueue(passwordResetService);
+    queue.setThreads(1);
+    queue.setQueueCapacity(1);
+    queue.setRetryAfterSeconds(7);
+    queue.postConstruct();
+  }
+
+  @AfterEach
+  void afterEach() throws InterruptedException {
+    queue.preDestroy();
+  }
+
+  @Test
+  void test_submit_ProcessesEachEmailOnceWithinDedupeWindow() {
+    queue.submit(new ResetPasswordDto("test@test.com"));
+    queue.submit(new ResetPasswordDto(" Test@Test.com"));
+
+    verify(passwordResetService, timeout(5_000).times(1)).addPasswordReset(any());
+  }
+
+  @Test
+  void test_submit_DoesNotSurfaceUnknownAccounts() {
+    when(passwordResetService.addPasswordReset(any()))
+        .thenThrow(new NoSuchUserAccountException("unknown@test.com"));
+
+    assertDoesNotThrow(() -> queue.submit(new ResetPasswordDto("unknown@test.com")));
+    verify(passwordResetService, timeout(5_000)).addPasswordReset(any());
+  }
+
+  @Test
+  void test_submit_AcceptsRetryRightAfterFailure() {
+    when(passwordResetService.addPasswordReset(any()))
+        .thenThrow(new IllegalStateException("database down"))
+        .thenReturn("token");
+
+    var dto = new ResetPasswordDto("test@test.com");
+    queue.submit(dto);
+    verify(passwordResetService, timeout(5_000)).addPasswordReset(any());
+
+    // the worker forgets the email just after the call fails, resubmit until that has happened
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (Mockito.mockingDetails(passwordResetService).getInvocations().size() < 2
+        && System.nanoTime() < deadline) {
+      queue.submit(dto);
+      Thread.onSpinWait();
+    }
+    verify(passwordResetService, timeout(5_000).times(2)).addPasswordReset(any());
+  }
+
+  @Test
+  void test_shutdown_ReportsDroppedRequests() throws Exception {
+    var started = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      started.countDown();
+      try {
+        new CountDownLatch(1).await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return "token";
+    }).when(passwordResetService).addPasswordReset(any());
+
+    // one request in flight, one still queued
+    queue.submit(new ResetPasswordDto("first@test.com"));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    queue.submit(new ResetPasswordDto("second@test.com"));
+
+    assertEquals(1, queue.shutdown(100));
+  }
+
+  @Test
+  void test_submit_ThrowsWhenQueueIsFullAndAcceptsRetryLater() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      started.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return "token";
+    }).when(passwordResetService).addPasswordReset(any());
+
+    // occupy the only worker thread, then the only queue slot
+    queue.submit(new ResetPasswordDto("first@test.com"));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    queue.submit(new ResetPasswordDto("second@test.com"));
+
+    var third = new ResetPasswordDto("third@test.com");
+    var ex = assertThrows(PasswordResetCapacityExceededException.class,
+                          () -> queue.submit(third));
+    assertEquals(7, ex.getRetryAfterSeconds());
+
+    release.countDown();
+    verify(passwordResetService, timeout(5_000).times(2)).addPasswordReset(any());
+    queue.submit(third);
+    verify(passwordResetService, timeout(5_000).times(3)).addPasswordReset(any());
+  }
+}
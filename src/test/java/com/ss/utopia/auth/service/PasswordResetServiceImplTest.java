@@ -1,6 +1,7 @@
 package com.ss.utopia.auth.service;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -16,6 +17,7 @@ import com.ss.utopia.auth.exception.EmailNotSentException;
 import com.ss.utopia.auth.exception.NoSuchUserAccountException;
 import com.ss.utopia.auth.repository.PasswordResetRepository;
 import com.ss.utopia.auth.repository.UserAccountRepository;
+import com.ss.utopia.auth.security.TokenDigests;
 import java.sql.Timestamp;
 import java.util.Date;
 import java.util.NoSuchElementException;
@@ -68,6 +70,41 @@ class PasswordResetServiceImplTest {
     assertDoesNotThrow(() -> passwordResetService.addPasswordReset(new ResetPasswordDto(email)));
   }
 
+  @Test
+  void test_addPasswordReset_StoresOnlyTokenHash() {
+    var email = "test@test.com";
+    userAccountRepository.findByEmail(email).ifPresent(userAccountRepository::delete);
+    passwordResetRepository.findByEmail(email).ifPresent(passwordResetRepository::delete);
+    userAccountService.createNewAccount(CreateUserAccountDto.builder()
+                                            .email(email)
+                                            .password("abCD1234!@")
+                                            .build());
+
+    var token = passwordResetService.addPasswordReset(new ResetPasswordDto(email));
+
+    var stored = passwordResetRepository.findByEmail(email).orElseThrow();
+    assertArrayEquals(TokenDigests.sha256(token), stored.getTokenHash());
+    assertTrue(passwordResetService.tokenCheck(token));
+  }
+
+  @Test
+  void test_addPasswordReset_ReusesRowOfAccountWhateverTheEmailCase() {
+    var email = "test@test.com";
+    userAccountRepository.findByEmail(email).ifPresent(userAccountRepository::delete);
+    passwordResetRepository.findByEmail(email).ifPresent(passwordResetRepository::delete);
+    var account = userAccountService.createNewAccount(CreateUserAccountDto.builder()
+                                                          .email(email)
+                                                          .password("abCD1234!@")
+                                                          .build());
+
+    passwordResetService.addPasswordReset(new ResetPasswordDto(email));
+    var token = passwordResetService.addPasswordReset(new ResetPasswordDto("TEST@test.com"));
+
+    var stored = passwordResetRepository.findByUserId(account.getId()).orElseThrow();
+    assertArrayEquals(TokenDigests.sha256(token), stored.getTokenHash());
+    assertEquals(email, stored.getEmail());
+  }
+
   @Test
   void test_addPasswordReset_EmailWasNotSent() {
     var email = "test@test.com";
@@ -96,7 +133,7 @@ class PasswordResetServiceImplTest {
     passwordResetRepository.save(PasswordReset.builder()
                                      .email("test@test.com")
                                      .userId(UUID.randomUUID())
-                                     .token(token)
+                                     .tokenHash(TokenDigests.sha256(token))
                                      .isActive(true)
                                      .build());
     boolean response = passwordResetService.tokenCheck(token);
@@ -110,7 +147,7 @@ class PasswordResetServiceImplTest {
     passwordResetRepository.save(PasswordReset.builder()
                                      .email("test@test.com")
                                      .userId(UUID.randomUUID())
-                                     .token(token)
+                                     .tokenHash(TokenDigests.sha256(token))
                                      .build());
 
     assertThrows(NoSuchElementException.class,
@@ -126,7 +163,7 @@ class PasswordResetServiceImplTest {
     passwordResetRepository.save(PasswordReset.builder()
                                      .email("test@test.com")
                                      .userId(UUID.randomUUID())
-                                     .token(token)
+                                     .tokenHash(TokenDigests.sha256(token))
                                      .build());
     NewPasswordDto newPasswordDto = NewPasswordDto.builder()
         .token(UUID.randomUUID().toString())
@@ -158,7 +195,7 @@ class PasswordResetServiceImplTest {
     passwordResetRepository.save(PasswordReset.builder()
                                      .email(email)
                                      .userId(customerID)
-                                     .token(token)
+                                     .tokenHash(TokenDigests.sha256(token))
                                      .build());
 
     //Setup object to send passwordResetService
@@ -193,7 +230,7 @@ class PasswordResetServiceImplTest {
                                      .email(email)
                                      .userId(customerID)
                                      .isActive(false)
-                                     .token(token)
+                                     .tokenHash(TokenDigests.sha256(token))
                                      .build());
 
     //Setup object to send passwordResetService
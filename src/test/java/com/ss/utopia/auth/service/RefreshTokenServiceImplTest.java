@@ -0,0 +1,121 @@
+package com.ss.utopia.auth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ss.utopia.auth.entity.RefreshToken;
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.entity.UserRole;
+import com.ss.utopia.auth.exception.InvalidRefreshTokenException;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.repository.RefreshTokenRepository;
+import com.ss.utopia.auth.repository.UserAccountRepository;
+import com.ss.utopia.auth.security.JwtTokenEngine;
+import com.ss.utopia.auth.security.SecurityConstants;
+import com.ss.utopia.auth.security.TokenDigests;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+class RefreshTokenServiceImplTest {
+
+  RefreshTokenRepository refreshTokenRepository = Mockito.mock(RefreshTokenRepository.class);
+  UserAccountRepository userAccountRepository = Mockito.mock(UserAccountRepository.class);
+  SecurityConstants securityConstants = new SecurityConstants();
+  JwtTokenEngine jwtTokenEngine =
+      new JwtTokenEngine(securityConstants, new AuthMetrics(new SimpleMeterRegistry()));
+
+  RefreshTokenService service = new RefreshTokenServiceImpl(refreshTokenRepository,
+                                                            userAccountRepository,
+                                                            jwtTokenEngine,
+                                                            securityConstants);
+
+  UserAccount user = UserAccount.builder()
+      .id(UUID.randomUUID())
+      .email("test@test.com")
+      .userRole(UserRole.CUSTOMER)
+      .build();
+
+  RefreshToken storedToken = RefreshToken.builder()
+      .id(UUID.randomUUID())
+      .ownerAccountId(user.getId())
+      .expiresAt(ZonedDateTime.now().plusDays(1))
+      .build();
+
+  @BeforeEach
+  void beforeEach() {
+    securityConstants.setJwtSecret("superSecret");
+    securityConstants.setJwtHeaderPrefix("Bearer ");
+    securityConstants.setJwtIssuer("ss-utopia");
+    securityConstants.setUserIdClaimKey("userId");
+    securityConstants.setAuthorityClaimKey("Authorities");
+    securityConstants.setJwtExpirationDuration("60_000");
+
+    when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.of(storedToken));
+    when(userAccountRepository.findById(user.getId())).thenReturn(Optional.of(user));
+  }
+
+  @Test
+  void test_createRefreshToken_StoresOnlyTheHash() {
+    var token = service.createRefreshToken(user.getId());
+
+    var captor = ArgumentCaptor.forClass(RefreshToken.class);
+    verify(refreshTokenRepository).save(captor.capture());
+    assertEquals(user.getId(), captor.getValue().getOwnerAccountId());
+    assertEquals(TokenDigests.sha256Base64Url(token),
+                 Base64.getUrlEncoder().withoutPadding()
+                     .encodeToString(captor.getValue().getTokenHash()));
+    assertTrue(captor.getValue().getExpiresAt().isAfter(ZonedDateTime.now().plusDays(13)));
+  }
+
+  @Test
+  void test_refresh_RotatesToken() {
+    when(refreshTokenRepository.markUsed(eq(storedToken.getId()), any())).thenReturn(1);
+
+    var response = service.refresh("presented-token");
+
+    assertEquals(user.getId(), response.getUserId());
+    assertTrue(response.getToken().startsWith("Bearer "));
+    assertNotEquals("presented-token", response.getRefreshToken());
+    verify(refreshTokenRepository).save(any());
+    verify(refreshTokenRepository, never()).deleteAllByOwnerAccountId(any());
+  }
+
+  @Test
+  void test_refresh_ReuseRevokesAllTokensOfOwner() {
+    when(refreshTokenRepository.markUsed(eq(storedToken.getId()), any())).thenReturn(0);
+
+    assertThrows(InvalidRefreshTokenException.class, () -> service.refresh("presented-token"));
+    verify(refreshTokenRepository).deleteAllByOwnerAccountId(user.getId());
+    verify(refreshTokenRepository, never()).save(any());
+  }
+
+  @Test
+  void test_refresh_RejectsExpiredAndUnknownTokens() {
+    when(refreshTokenRepository.markUsed(eq(storedToken.getId()), any())).thenReturn(1);
+    storedToken.setExpiresAt(ZonedDateTime.now().minusSeconds(1));
+
+    // retrying an expired token neither consumes it nor revokes the owner's sessions
+    assertThrows(InvalidRefreshTokenException.class, () -> service.refresh("presented-token"));
+    assertThrows(InvalidRefreshTokenException.class, () -> service.refresh("presented-token"));
+    verify(refreshTokenRepository, never()).markUsed(any(), any());
+    verify(refreshTokenRepository, never()).deleteAllByOwnerAccountId(any());
+
+    when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.empty());
+    assertThrows(InvalidRefreshTokenException.class, () -> service.refresh("unknown-token"));
+    verify(refreshTokenRepository, never()).save(any());
+  }
+}
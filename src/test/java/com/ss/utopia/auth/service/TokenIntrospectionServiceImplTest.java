@@ -0,0 +1,81 @@
+package com.ss.utopia.auth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.ss.utopia.auth.dto.TokenIntrospectionDto.ErrorCode;
+import com.ss.utopia.auth.entity.UserAccount;
+import com.ss.utopia.auth.entity.UserRole;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.security.JwtTokenEngine;
+import com.ss.utopia.auth.security.SecurityConstants;
+import com.ss.utopia.auth.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TokenIntrospectionServiceImplTest {
+
+  final UserAccount user = UserAccount.builder()
+      .id(UUID.randomUUID())
+      .email("test@test.com")
+      .userRole(UserRole.CUSTOMER)
+      .build();
+
+  JwtTokenEngine engine;
+  VerifiedTokenCache cache;
+  TokenIntrospectionServiceImpl service;
+
+  @BeforeEach
+  void beforeEach() {
+    var securityConstants = new SecurityConstants();
+    securityConstants.setJwtSecret("superSecret");
+    securityConstants.setJwtIssuer("ss-utopia");
+    securityConstants.setJwtHeaderPrefix("Bearer ");
+    securityConstants.setUserIdClaimKey("userId");
+    securityConstants.setAuthorityClaimKey("Authorities");
+    var authMetrics = new AuthMetrics(new SimpleMeterRegistry());
+    engine = new JwtTokenEngine(securityConstants, authMetrics);
+    cache = new VerifiedTokenCache(engine, securityConstants, authMetrics);
+    cache.postConstruct();
+    service = new TokenIntrospectionServiceImpl(cache, securityConstants);
+  }
+
+  @Test
+  void test_introspect_ReturnsPrincipalOfValidTokenAndReusesCache() {
+    var expiresAt = new Date(System.currentTimeMillis() + 60_000L);
+    var token = engine.createToken(user, expiresAt);
+
+    var result = service.introspect(token);
+    service.introspect("Bearer " + token);
+
+    assertTrue(result.isActive());
+    assertEquals(user.getId(), result.getUserId());
+    assertEquals(user.getEmail(), result.getEmail());
+    assertEquals(List.of("ROLE_CUSTOMER"), result.getAuthorities());
+    // exp claims have second precision
+    assertEquals(expiresAt.getTime() / 1000 * 1000, result.getExpiresAt());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  void test_introspect_ReportsWhyTokensAreRejected() {
+    var expired = engine.createToken(user, new Date(System.currentTimeMillis() - 60_000L));
+    var forged = JWT.create()
+        .withSubject(user.getEmail())
+        .sign(Algorithm.HMAC512("not the secret"));
+
+    assertEquals(ErrorCode.EXPIRED, service.introspect(expired).getError());
+    assertEquals(ErrorCode.INVALID, service.introspect(forged).getError());
+    assertEquals(ErrorCode.MALFORMED, service.introspect("not a jwt").getError());
+    assertEquals(ErrorCode.MALFORMED, service.introspect(" ").getError());
+    assertFalse(service.introspect(forged).isActive());
+  }
+}
@@ -0,0 +1,145 @@
+package com.ss.utopia.auth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ss.utopia.auth.entity.AccountAction;
+import com.ss.utopia.auth.entity.AccountActionToken;
+import com.ss.utopia.auth.entity.PasswordReset;
+import com.ss.utopia.auth.entity.RefreshToken;
+import com.ss.utopia.auth.entity.SchedulerLease;
+import com.ss.utopia.auth.metrics.AuthMetrics;
+import com.ss.utopia.auth.repository.AccountActionTokenRepository;
+import com.ss.utopia.auth.repository.PasswordResetRepository;
+import com.ss.utopia.auth.repository.RefreshTokenRepository;
+import com.ss.utopia.auth.repository.SchedulerLeaseRepository;
+import com.ss.utopia.auth.security.TokenDigests;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+@DataJpaTest
+class TokenReaperTest {
+
+  @Autowired
+  AccountActionTokenRepository accountActionTokenRepository;
+  @Autowired
+  PasswordResetRepository passwordResetRepository;
+  @Autowired
+  RefreshTokenRepository refreshTokenRepository;
+  @Autowired
+  SchedulerLeaseRepository schedulerLeaseRepository;
+  @Autowired
+  TestEntityManager entityManager;
+
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  TokenReaper reaper;
+
+  @BeforeEach
+  void beforeEach() {
+    reaper = new TokenReaper(accountActionTokenRepository, passwordResetRepository,
+                             refreshTokenRepository, schedulerLeaseRepository,
+                             new AuthMetrics(meterRegistry));
+    reaper.setBatchSize(1);
+  }
+
+  @Test
+  void test_reap_DeletesUsedAndExpiredRowsInBatches() {
+    var live = token(true);
+    token(false);
+    token(false);
+    var expired = token(true);
+    entityManager.getEntityManager()
+        .createQuery("UPDATE AccountActionToken t SET t.expiresAt = :expiresAt"
+                         + " WHERE t.token = :token")
+        .setParameter("expiresAt", ZonedDateTime.now().minusMinutes(1))
+        .setParameter("token", expired)
+        .executeUpdate();
+    passwordResetRepository.save(PasswordReset.builder().tokenHash(TokenDigests.sha256("used")).isActive(false).build());
+    passwordResetRepository.save(PasswordReset.builder().tokenHash(TokenDigests.sha256("pending")).build());
+
+    reaper.reap();
+
+    assertEquals(1, accountActionTokenRepository.count());
+    assertTrue(accountActionTokenRepository.existsById(live));
+    assertEquals(1, passwordResetRepository.count());
+    assertEquals(3.0, meterRegistry.get("utopia.auth.reaper.deleted")
+        .tag("table", "account_action_token").counter().count());
+  }
+
+  @Test
+  void test_reap_DeletesRefreshTokensPastTheirExpiry() {
+    var live = refreshToken("live", ZonedDateTime.now().plusDays(1));
+    refreshToken("expired", ZonedDateTime.now().minusMinutes(1));
+    refreshToken("used", ZonedDateTime.now().plusDays(1));
+    refreshTokenRepository.markUsed(refreshTokenRepository
+                                        .findByTokenHash(TokenDigests.sha256("used"))
+                                        .orElseThrow().getId(),
+                                    ZonedDateTime.now().minusSeconds(1));
+    entityManager.clear();
+
+    reaper.reap();
+
+    assertEquals(1, refreshTokenRepository.count());
+    assertTrue(refreshTokenRepository.existsById(live));
+    assertEquals(2.0, meterRegistry.get("utopia.auth.reaper.deleted")
+        .tag("table", "refresh_token").counter().count());
+  }
+
+  @Test
+  void test_reap_CreatesLeaseWithAPlainInsert() {
+    reaper.reap();
+
+    var lease = schedulerLeaseRepository.findById(TokenReaper.LEASE_NAME).orElseThrow();
+    assertNotEquals("", lease.getOwner());
+    // a second instance racing to create the lease fails instead of overwriting it
+    assertThrows(DataIntegrityViolationException.class,
+                 () -> schedulerLeaseRepository.create(TokenReaper.LEASE_NAME,
+                                                       ZonedDateTime.now()));
+  }
+
+  @Test
+  void test_reap_SkipsWhileAnotherInstanceHoldsTheLease() {
+    token(false);
+    schedulerLeaseRepository.saveAndFlush(new SchedulerLease(TokenReaper.LEASE_NAME, "other",
+                                                             ZonedDateTime.now().plusMinutes(5)));
+
+    reaper.reap();
+
+    assertEquals(1, accountActionTokenRepository.count());
+    assertNull(meterRegistry.find("utopia.auth.reaper").timer());
+  }
+
+  private UUID refreshToken(String token, ZonedDateTime expiresAt) {
+    return refreshTokenRepository.saveAndFlush(RefreshToken.builder()
+                                                   .tokenHash(TokenDigests.sha256(token))
+                                                   .ownerAccountId(UUID.randomUUID())
+                                                   .expiresAt(expiresAt)
+                                                   .build())
+        .getId();
+  }
+
+  private UUID token(boolean active) {
+    var token = accountActionTokenRepository.saveAndFlush(AccountActionToken.builder()
+                                                              .ownerAccountId(UUID.randomUUID())
+                                                              .action(AccountAction.CONFIRMATION)
+                                                              .expiresAt(ZonedDateTime.now()
+                                                                             .plusMinutes(60))
+                                                              .build())
+        .getToken();
+    if (!active) {
+      accountActionTokenRepository.consume(token, AccountAction.CONFIRMATION,
+                                           ZonedDateTime.now());
+    }
+    return token;
+  }
+}
@@ -2,17 +2,25 @@ package com.ss.utopia.auth.service;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.ss.utopia.auth.client.EmailClient;
 import com.ss.utopia.auth.dto.CreateUserAccountDto;
 import com.ss.utopia.auth.dto.DeleteAccountDto;
+import com.ss.utopia.auth.dto.UserAccountSummaryDto;
 import com.ss.utopia.auth.entity.AccountAction;
 import com.ss.utopia.auth.entity.AccountActionToken;
 import com.ss.utopia.auth.entity.UserAccount;
@@ -23,18 +31,29 @@ import com.ss.utopia.auth.exception.IllegalCustomerAccountDeletionException;
 import com.ss.utopia.auth.exception.NoSuchAccountActionToken;
 import com.ss.utopia.auth.exception.NoSuchUserAccountException;
 import com.ss.utopia.auth.repository.UserAccountRepository;
+import com.ss.utopia.auth.security.UserDetailsCache;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
 
 class UserAccountServiceImplTest {
 
@@ -119,12 +138,15 @@ class UserAccountServiceImplTest {
   BCryptPasswordEncoder passwordEncoder = Mockito.mock(BCryptPasswordEncoder.class);
   AccountActionTokenService accountActionTokenService = Mockito.mock(AccountActionTokenService.class);
   EmailClient emailClient = Mockito.mock(EmailClient.class);
+  UserDetailsCache userDetailsCache = Mockito.mock(UserDetailsCache.class);
 
   UserAccountService service = new UserAccountServiceImpl(userAccountRepository,
                                                           authenticationManager,
                                                           passwordEncoder,
                                                           accountActionTokenService,
-                                                          emailClient);
+                                                          emailClient,
+                                                          userDetailsCache,
+                                                          TransactionOperations.withoutTransaction());
 
   @BeforeEach
   void beforeEach() {
@@ -146,14 +168,65 @@ class UserAccountServiceImplTest {
         .forEach(account -> assertNull(account.getPassword()));
   }
 
+  @Test
+  void test_getAccountPage_ReturnsCursorOnlyWhenPageIsFull() {
+    var first = summary();
+    var second = summary();
+    when(userAccountRepository.findSummaries(PageRequest.of(0, 2)))
+        .thenReturn(List.of(first, second));
+    when(userAccountRepository.findSummariesAfter(second.getId(), PageRequest.of(0, 2)))
+        .thenReturn(List.of(summary()));
+
+    var page = service.getAccountPage(null, 2);
+    assertEquals(List.of(first, second), page.getAccounts());
+    assertEquals(second.getId(), page.getNextCursor());
+
+    assertNull(service.getAccountPage(second.getId(), 2).getNextCursor());
+  }
+
+  @Test
+  void test_forEachAccountSummary_ReadsInKeysetChunksUntilShortChunk() {
+    var firstChunk = Stream.generate(this::summary).limit(500).collect(Collectors.toList());
+    var last = firstChunk.get(firstChunk.size() - 1);
+    when(userAccountRepository.findSummaries(any(Pageable.class))).thenReturn(firstChunk);
+    when(userAccountRepository.findSummariesAfter(eq(last.getId()), any(Pageable.class)))
+        .thenReturn(List.of(summary()));
+
+    var exported = new ArrayList<UserAccountSummaryDto>();
+    service.forEachAccountSummary(exported::add);
+
+    assertEquals(501, exported.size());
+    verify(userAccountRepository).findSummaries(any(Pageable.class));
+    verify(userAccountRepository).findSummariesAfter(any(UUID.class), any(Pageable.class));
+  }
+
+  @Test
+  void test_lookupAccounts_QueriesInChunksAndReportsMissingKeys() {
+    var found = summary();
+    var ids = Stream.generate(UUID::randomUUID).limit(599).collect(Collectors.toList());
+    ids.add(found.getId());
+    when(userAccountRepository.findSummariesByIdIn(any())).thenReturn(List.of());
+    when(userAccountRepository.findSummariesByIdIn(Mockito.argThat(chunk -> chunk.contains(
+        found.getId())))).thenReturn(List.of(found));
+    when(userAccountRepository.findSummariesByNormalizedEmailIn(
+        List.of("summary@test.com", "missing@test.com"))).thenReturn(List.of(found));
+
+    var result = service.lookupAccounts(ids, List.of("Summary@Test.com", "missing@test.com"));
+
+    verify(userAccountRepository, times(2)).findSummariesByIdIn(any());
+    assertEquals(List.of(found), result.getAccounts());
+    assertEquals(599, result.getMissingIds().size());
+    assertEquals(List.of("missing@test.com"), result.getMissingEmails());
+  }
+
   @Test
   void test_createNewAccount_ReturnsCreatedAccountOnSuccess() {
-    when(userAccountRepository.save(mockDefaultAccountWithoutId)).thenReturn(
+    when(userAccountRepository.saveAndFlush(mockDefaultAccountWithoutId)).thenReturn(
         mockDefaultAccountWithId);
 
-    when(accountActionTokenService.createToken(mockConfirmationToken.getOwnerAccountId(),
+    when(accountActionTokenService.createToken(mockDefaultAccountWithId,
                                                mockConfirmationToken.getAction()))
-        .thenReturn(persistedConfirmationToken);
+        .thenReturn(persistedConfirmationToken.getToken().toString());
 
     var dto = CreateUserAccountDto.builder()
         .email(validEmail)
@@ -168,8 +241,12 @@ class UserAccountServiceImplTest {
   @Test
   void test_createNewAccount_ThrowsDuplicateEmailExceptionOnDuplicateEmailAccount() {
     var email = "test@test.com";
-    when(userAccountRepository.findByEmail(anyString()))
-        .thenReturn(Optional.of(UserAccount.builder().build()));
+    // lost a race with a concurrent registration, caught by the unique constraint
+    when(userAccountRepository.saveAndFlush(any()))
+        .thenThrow(new DataIntegrityViolationException("unique constraint",
+                                                       new ConstraintViolationException(
+                                                           "duplicate", null,
+                                                           UserAccount.NORMALIZED_EMAIL_KEY)));
 
     var dto = CreateUserAccountDto.builder()
         .email(email)
@@ -187,6 +264,35 @@ class UserAccountServiceImplTest {
     }
   }
 
+  @Test
+  void test_createNewAccount_RejectsKnownEmailBeforeHashing() {
+    when(userAccountRepository.existsByNormalizedEmail("test@test.com")).thenReturn(true);
+
+    var dto = CreateUserAccountDto.builder()
+        .email("Test@test.com")
+        .password("abCD1234!@")
+        .build();
+
+    assertThrows(DuplicateEmailException.class, () -> service.createNewAccount(dto));
+    verify(passwordEncoder, never()).encode(any());
+  }
+
+  @Test
+  void test_createNewAccount_RethrowsOtherIntegrityViolations() {
+    var notNull = new DataIntegrityViolationException("not null",
+                                                      new ConstraintViolationException(
+                                                          "null password", null, null));
+    when(userAccountRepository.saveAndFlush(any())).thenThrow(notNull);
+
+    var dto = CreateUserAccountDto.builder()
+        .email("test@test.com")
+        .password("abCD1234!@")
+        .build();
+
+    assertSame(notNull, assertThrows(DataIntegrityViolationException.class,
+                                     () -> service.createNewAccount(dto)));
+  }
+
   @Test
   void test_createNewAccount_ThrowsIllegalArgumentExceptionOnInvalidDTO() {
     when(userAccountRepository.findByEmail(anyString()))
@@ -231,33 +337,33 @@ class UserAccountServiceImplTest {
 
   @Test
   void test_confirmAccountRegistration_DoesNotThrowOnValidUUID() {
-    when(accountActionTokenService.getAndValidateToken(any(UUID.class)))
-        .thenReturn(persistedConfirmationToken);
+    when(accountActionTokenService.consumeToken(anyString(), eq(AccountAction.CONFIRMATION)))
+        .thenReturn(persistedConfirmationToken.getOwnerAccountId());
 
     when(userAccountRepository.findById(any(UUID.class)))
         .thenReturn(Optional.of(mockDefaultAccountWithId));
 
-    assertDoesNotThrow(() -> service.confirmAccountRegistration(UUID.randomUUID()));
+    assertDoesNotThrow(() -> service.confirmAccountRegistration(UUID.randomUUID().toString()));
   }
 
   @Test
   void test_confirmAccountRegistration_ThrowsNoSuchAccountTokenExceptionOnTokenNotFound() {
-    when(accountActionTokenService.getAndValidateToken(any(UUID.class)))
-        .thenThrow(new NoSuchAccountActionToken(null));
+    when(accountActionTokenService.consumeToken(anyString(), eq(AccountAction.CONFIRMATION)))
+        .thenThrow(new NoSuchAccountActionToken(UUID.randomUUID()));
 
     assertThrows(NoSuchAccountActionToken.class,
-                 () -> service.confirmAccountRegistration(UUID.randomUUID()));
+                 () -> service.confirmAccountRegistration(UUID.randomUUID().toString()));
   }
 
   @Test
   void test_confirmAccountRegistration_ThrowsNoSuchUserAccountExceptionOnUserNotFound() {
-    when(accountActionTokenService.getAndValidateToken(any(UUID.class)))
-        .thenReturn(persistedConfirmationToken);
+    when(accountActionTokenService.consumeToken(anyString(), eq(AccountAction.CONFIRMATION)))
+        .thenReturn(persistedConfirmationToken.getOwnerAccountId());
 
     when(userAccountRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
 
     assertThrows(NoSuchUserAccountException.class,
-                 () -> service.confirmAccountRegistration(UUID.randomUUID()));
+                 () -> service.confirmAccountRegistration(UUID.randomUUID().toString()));
   }
 
   @Test
@@ -268,7 +374,7 @@ class UserAccountServiceImplTest {
         .thenReturn(Optional.of(mockDefaultAccountWithId));
 
     when(accountActionTokenService.createToken(any(), any()))
-        .thenReturn(AccountActionToken.builder().token(UUID.randomUUID()).build());
+        .thenReturn(UUID.randomUUID().toString());
 
     customerLevelAccountList
         .forEach(account ->
@@ -280,6 +386,77 @@ class UserAccountServiceImplTest {
                                                        .build())));
   }
 
+  @Test
+  void test_resendAccountConfirmation_ReusesTokenOnlyForUnconfirmedAccount() {
+    var token = UUID.randomUUID().toString();
+    when(userAccountRepository.findByEmail(validEmail))
+        .thenReturn(Optional.of(mockDefaultAccountWithId));
+    when(accountActionTokenService.getOrCreateToken(mockDefaultAccountWithId,
+                                                    AccountAction.CONFIRMATION))
+        .thenReturn(token);
+
+    service.resendAccountConfirmation(validEmail);
+
+    verify(emailClient).sendConfirmAccountEmail(validEmail, token);
+
+    // confirmed or unknown accounts get nothing
+    Mockito.reset(emailClient);
+    when(userAccountRepository.findByEmail(validEmail))
+        .thenReturn(Optional.of(UserAccount.builder()
+                                    .id(accountId)
+                                    .email(validEmail)
+                                    .userRole(UserRole.CUSTOMER)
+                                    .confirmed(true)
+                                    .build()));
+    service.resendAccountConfirmation(validEmail);
+    when(userAccountRepository.findByEmail(validEmail)).thenReturn(Optional.empty());
+    service.resendAccountConfirmation(validEmail);
+    Mockito.verifyNoInteractions(emailClient);
+  }
+
+  @Test
+  void test_initiateCustomerDeletion_AuthenticatesBeforeTransaction() {
+    var inTransaction = new AtomicBoolean();
+    var transactionOperations = new TransactionOperations() {
+      @Override
+      public <T> T execute(TransactionCallback<T> action) {
+        inTransaction.set(true);
+        try {
+          return action.doInTransaction(null);
+        } finally {
+          inTransaction.set(false);
+        }
+      }
+    };
+    var transactionalService = new UserAccountServiceImpl(userAccountRepository,
+                                                          authenticationManager,
+                                                          passwordEncoder,
+                                                          accountActionTokenService,
+                                                          emailClient,
+                                                          userDetailsCache,
+                                                          transactionOperations);
+    when(authenticationManager.authenticate(any())).thenAnswer(invocation -> {
+      assertFalse(inTransaction.get());
+      return null;
+    });
+    when(userAccountRepository.findById(mockCustomerAccount.getId()))
+        .thenAnswer(invocation -> {
+          assertTrue(inTransaction.get());
+          return Optional.of(mockCustomerAccount);
+        });
+    when(accountActionTokenService.createToken(any(), any()))
+        .thenReturn(UUID.randomUUID().toString());
+
+    transactionalService.initiateCustomerDeletion(DeleteAccountDto.builder()
+                                                      .id(mockCustomerAccount.getId())
+                                                      .email(mockCustomerAccount.getEmail())
+                                                      .password(validUnhashedPassword)
+                                                      .build());
+
+    Mockito.verify(authenticationManager).authenticate(any());
+    Mockito.verify(emailClient).sendDeleteAccountEmail(eq(mockCustomerAccount.getEmail()), any());
+  }
+
   @Test
   void test_initiateCustomerDeletion_ThrowsExceptionOnAttemptToDeleteElevatedUser() {
     when(userAccountRepository.findById(mockAdminAccount.getId()))
@@ -304,17 +481,14 @@ class UserAccountServiceImplTest {
 
   @Test
   void test_completeCustomerDeletion_DoesNotThrowExceptionOnCustomerLevelUser() {
-    var confirmationToken = UUID.randomUUID();
+    var confirmationToken = UUID.randomUUID().toString();
 
     Function<UserAccount, Void> test = user -> {
       when(userAccountRepository.findById(user.getId()))
           .thenReturn(Optional.of(user));
 
-      when(accountActionTokenService.getAndValidateToken(any()))
-          .thenReturn(AccountActionToken.builder()
-                          .ownerAccountId(user.getId())
-                          .token(confirmationToken)
-                          .build());
+      when(accountActionTokenService.consumeToken(confirmationToken, AccountAction.DELETION))
+          .thenReturn(user.getId());
 
       assertDoesNotThrow(() -> service.completeCustomerDeletion(confirmationToken));
       return null;
@@ -325,17 +499,14 @@ class UserAccountServiceImplTest {
 
   @Test
   void test_completeCustomerDeletion_ThrowsExceptionOnAttemptToDeleteElevatedUser() {
-    var confirmationToken = UUID.randomUUID();
+    var confirmationToken = UUID.randomUUID().toString();
 
     Function<UserAccount, Void> test = user -> {
       when(userAccountRepository.findById(user.getId()))
           .thenReturn(Optional.of(user));
 
-      when(accountActionTokenService.getAndValidateToken(any()))
-          .thenReturn(AccountActionToken.builder()
-                          .ownerAccountId(user.getId())
-                          .token(confirmationToken)
-                          .build());
+      when(accountActionTokenService.consumeToken(confirmationToken, AccountAction.DELETION))
+          .thenReturn(user.getId());
 
       assertThrows(IllegalCustomerAccountDeletionException.class,
                    () -> service.completeCustomerDeletion(confirmationToken));
@@ -375,6 +546,8 @@ class UserAccountServiceImplTest {
     var newEmail = mockCustomerAccount.getEmail();
 
     assertNotEquals(oldEmail, newEmail);
+    verify(userDetailsCache).evict(oldEmail);
+    verify(userDetailsCache, Mockito.atLeastOnce()).evict("new@test.com");
 
     mockCustomerAccount.setEmail(oldEmail);
   }
@@ -393,4 +566,12 @@ class UserAccountServiceImplTest {
 
     elevatedUserList.forEach(test::apply);
   }
-}
\ No newline at end of file
+
+  private UserAccountSummaryDto summary() {
+    return UserAccountSummaryDto.builder()
+        .id(UUID.randomUUID())
+        .email("summary@test.com")
+        .userRole(UserRole.CUSTOMER)
+        .build();
+  }
+}